@@ -0,0 +1,119 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Policies that compute the delay before a retry from the configured delay.
+ */
+public enum Backoff {
+
+    /**
+     * Every retry waits the configured delay.
+     */
+    FIXED("fixed") {
+        @Override
+        long getDelay(final long delay, final int retry, final long previousDelay) {
+            return delay;
+        }
+    },
+
+    /**
+     * The n-th retry waits n times the configured delay.
+     */
+    LINEAR("linear") {
+        @Override
+        long getDelay(final long delay, final int retry, final long previousDelay) {
+            return delay * retry;
+        }
+    },
+
+    /**
+     * The delay is doubled with every retry.
+     */
+    EXPONENTIAL("exponential") {
+        @Override
+        long getDelay(final long delay, final int retry, final long previousDelay) {
+            return delay << Math.min(retry - 1, 30);
+        }
+    },
+
+    /**
+     * Random delay between the configured delay and three times the previous delay, so that concurrent tests do not
+     * retry at the same time.
+     */
+    DECORRELATED_JITTER("decorrelated-jitter") {
+        @Override
+        long getDelay(final long delay, final int retry, final long previousDelay) {
+            final long upperBound = Math.max(delay, previousDelay) * 3;
+            return (upperBound > delay) ? ThreadLocalRandom.current().nextLong(delay, upperBound) : delay;
+        }
+    };
+
+    /**
+     * Name of the policy in the test configuration.
+     */
+    private final String name;
+
+    Backoff(final String name) {
+        this.name = name;
+    }
+
+    /**
+     * Computes the delay before a retry.
+     *
+     * @param delay configured delay in milliseconds
+     * @param retry number of the retry, starting with 1
+     * @param previousDelay delay before the previous retry in milliseconds, 0 before the first retry
+     * @return delay in milliseconds
+     */
+    abstract long getDelay(long delay, int retry, long previousDelay);
+
+    /**
+     * Returns the policy with the given name, e.g. "exponential".
+     *
+     * @param name name of the policy, null for the fixed delay
+     * @return policy with the given name
+     * @throws IllegalArgumentException if there is no policy with this name
+     */
+    public static Backoff fromName(final String name) {
+        if (name == null) {
+            return FIXED;
+        }
+
+        for (Backoff backoff : values()) {
+            if (backoff.name.equalsIgnoreCase(name)) {
+                return backoff;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown backoff '" + name + "' - expected fixed, linear, exponential or decorrelated-jitter.");
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
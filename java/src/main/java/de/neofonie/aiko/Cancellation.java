@@ -0,0 +1,82 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cooperative cancellation of a run. Tests check it before each request and retry, in-flight requests and pending
+ * retries register a callback, that aborts them when the run is cancelled. Every callback is run at most once.
+ */
+public class Cancellation {
+
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+
+    private final Set<Runnable> callbacks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Cancels the run and runs all registered callbacks on the calling thread.
+     */
+    public void cancel() {
+        cancelled.countDown();
+        for (Runnable callback : callbacks) {
+            if (callbacks.remove(callback)) {
+                callback.run();
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.getCount() == 0;
+    }
+
+    /**
+     * Registers a callback, that is run when the run is cancelled. If the run has already been cancelled, the
+     * callback is run immediately.
+     *
+     * @param callback aborts e.g. a request
+     * @return removes the callback, e.g. when the request has been completed
+     */
+    public Runnable onCancel(final Runnable callback) {
+        callbacks.add(callback);
+        if (isCancelled() && callbacks.remove(callback)) {
+            callback.run();
+        }
+        return () -> callbacks.remove(callback);
+    }
+
+    /**
+     * Waits until the given time has passed or the run has been cancelled.
+     *
+     * @param millis maximum time to wait in milliseconds
+     * @return true if the run has been cancelled
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean await(final long millis) throws InterruptedException {
+        return cancelled.await(millis, TimeUnit.MILLISECONDS);
+    }
+}
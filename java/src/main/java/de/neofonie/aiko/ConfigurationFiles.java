@@ -0,0 +1,131 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the configuration files given on the command line. A file is used as it is, a directory stands for all
+ * YAML files below it and a glob like {@code tests/**}{@code /*.yml} for all files it matches. Directories and globs
+ * are expanded in the order of their paths, so the groups are always run and reported in the same order.
+ */
+public final class ConfigurationFiles {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private ConfigurationFiles() {
+    }
+
+    /**
+     * Returns the files of the given paths, directories and globs. Every file is returned once, at its first
+     * occurrence.
+     *
+     * @param patterns paths of files or directories or globs
+     * @return configuration files in a deterministic order
+     * @throws IOException if a directory can not be read
+     * @throws IllegalArgumentException if a directory or glob does not contain any file
+     */
+    public static List<File> resolve(final String... patterns) throws IOException {
+        final Set<File> files = new LinkedHashSet<>();
+        for (String pattern : patterns) {
+            final List<File> resolved = resolve(pattern);
+            if (resolved.isEmpty()) {
+                throw new IllegalArgumentException("No YAML files found for '" + pattern + "'.");
+            }
+            files.addAll(resolved);
+        }
+        return new ArrayList<>(files);
+    }
+
+    private static List<File> resolve(final String pattern) throws IOException {
+        if (isGlob(pattern)) {
+            return find(getBaseDirectory(pattern), FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+
+        final Path path = Paths.get(pattern);
+        if (Files.isDirectory(path)) {
+            return find(path, ConfigurationFiles::isYaml);
+        }
+        // missing files are reported when they are loaded
+        final List<File> result = new ArrayList<>();
+        result.add(path.toFile());
+        return result;
+    }
+
+    private static List<File> find(final Path directory, final PathMatcher matcher) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isGlob(final String pattern) {
+        return indexOfGlob(pattern) >= 0;
+    }
+
+    private static boolean isYaml(final Path path) {
+        final String name = path.getFileName().toString();
+        return name.endsWith(".yml") || name.endsWith(".yaml");
+    }
+
+    /**
+     * Returns the directory of the leading path segments without glob characters.
+     */
+    private static Path getBaseDirectory(final String pattern) {
+        final int glob = indexOfGlob(pattern);
+        final int separator = pattern.lastIndexOf('/', glob);
+        if (separator < 0) {
+            return Paths.get("");
+        }
+        return Paths.get(separator == 0 ? "/" : pattern.substring(0, separator));
+    }
+
+    private static int indexOfGlob(final String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -23,24 +23,75 @@ SOFTWARE.
  */
 package de.neofonie.aiko;
 
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.ApacheHttpClient4Handler;
 import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.GroupReader;
 import de.neofonie.aiko.yaml.TestConfiguration;
-import java.io.ByteArrayInputStream;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.HttpContext;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The context is used to hold information about the context path and the test
- * configuration.
+ * configuration. It also owns the HTTP clients and the scheduler, that are shared
+ * by all tests of a run and have to be closed after the run.
  */
-public class Context {
+public class Context implements Closeable {
+
+    /**
+     * Connect and read timeout in milliseconds.
+     */
+    private static final int TIMEOUT = 60_000;
+
+    /**
+     * The length of the body is set by the clients, a declared Content-Length header would be sent twice.
+     */
+    private static final HttpRequestInterceptor REMOVE_CONTENT_LENGTH = (request, httpContext) -> {
+        if (request instanceof HttpEntityEnclosingRequest) {
+            request.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+        }
+    };
 
     /**
      * The context path is used to expand the file references within the body of
@@ -49,12 +100,82 @@ public class Context {
     private final String contextPath;
 
     /**
-     * The parsed test configuration.
+     * The parsed test configuration, null if the groups are streamed.
      */
     private final TestConfiguration testConfiguration;
 
     /**
-     * Creates a new instance with the given arguments.
+     * Reader of the groups, if they are parsed while the tests run.
+     */
+    private final StreamedGroups streamedGroups;
+
+    /**
+     * Streamed groups of the shard of this run, null if the groups are not streamed.
+     */
+    private final Iterator<Group> streamedGroupIterator;
+
+    /**
+     * Pooled HTTP client, that keeps connections alive between requests.
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Jersey client, that sends its requests with the pooled HTTP client.
+     */
+    private final Client client;
+
+    /**
+     * Settings of the run, used to create the asynchronous client.
+     */
+    private final Settings settings;
+
+    /**
+     * Statistics of the run.
+     */
+    private final RunStatistics statistics = new RunStatistics();
+
+    /**
+     * Latencies of the requests of the run.
+     */
+    private final LatencyStatistics latencies = new LatencyStatistics();
+
+    /**
+     * Cancels the run after the first failure, see {@link #failed()}.
+     */
+    private final Cancellation cancellation = new Cancellation();
+
+    /**
+     * Durations of the groups of previous runs, null if no history is kept.
+     */
+    private final GroupHistory history;
+
+    /**
+     * Content of referenced files, that are used more than once.
+     */
+    private final FixtureCache fixtures;
+
+    /**
+     * Requests sent by the current thread within {@link #abortOnCancel(BlockingExchange)}.
+     */
+    private final ThreadLocal<BlockingRequests> blockingRequests = new ThreadLocal<>();
+
+    /**
+     * Non-blocking HTTP client, created on first use.
+     */
+    private CloseableHttpAsyncClient asyncClient;
+
+    /**
+     * Scheduler for delayed tasks, e.g. retries. Created on first use.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Threads for tests of a group, that run concurrently. Created on first use.
+     */
+    private ExecutorService testExecutor;
+
+    /**
+     * Creates a new instance with the given arguments and default settings.
      *
      * @param contextPath context path is used to expand the file references
      * within the body of requests / responds.
@@ -63,8 +184,146 @@ public class Context {
      * @throws IOException
      */
     public Context(final String contextPath, final String configurationFilePath) throws IOException {
+        this(contextPath, configurationFilePath, new Settings());
+    }
+
+    /**
+     * Creates a new instance with the given arguments.
+     *
+     * @param contextPath context path is used to expand the file references
+     * within the body of requests / responds.
+     * @param configurationFilePath path to the configuration file. it will be
+     * parsed to get the configuration.
+     * @param settings settings of the run, e.g. the size of the connection pool.
+     * @throws IOException
+     */
+    public Context(final String contextPath, final String configurationFilePath, final Settings settings) throws IOException {
+        this(contextPath, Collections.singletonList(new File(configurationFilePath)), settings);
+    }
+
+    /**
+     * Creates a new instance with the groups of all given files. The files are parsed concurrently, the groups keep
+     * the order of the files.
+     *
+     * @param contextPath context path is used to expand the file references
+     * within the body of requests / responds.
+     * @param configurationFiles configuration files, see {@link ConfigurationFiles#resolve(String...)}
+     * @param settings settings of the run, e.g. the size of the connection pool.
+     * @throws IOException
+     */
+    public Context(final String contextPath, final List<File> configurationFiles, final Settings settings) throws IOException {
         this.contextPath = contextPath;
-        this.testConfiguration = TestConfiguration.getFromFile(configurationFilePath);
+        final Shard shard = settings.getShard();
+        if (settings.isStreaming()) {
+            this.testConfiguration = null;
+            this.streamedGroups = new StreamedGroups(configurationFiles);
+            this.streamedGroupIterator = (shard != null) ? shard.filter(streamedGroups) : streamedGroups;
+        } else {
+            this.testConfiguration = TestConfiguration.getFromFiles(configurationFiles);
+            if (shard != null && testConfiguration != null && testConfiguration.getGroups() != null) {
+                testConfiguration.setGroups(shard.filter(testConfiguration.getGroups()));
+            }
+            this.streamedGroups = null;
+            this.streamedGroupIterator = null;
+        }
+        this.settings = settings;
+        this.history = (settings.getHistory() != null) ? GroupHistory.read(Paths.get(settings.getHistory())) : null;
+        this.fixtures = new FixtureCache(settings.getFixtureCacheSize() * 1024L * 1024L);
+        this.httpClient = createHttpClient(settings, this::trackBlockingRequest);
+        this.client = new ApacheHttpClient4(new ApacheHttpClient4Handler(httpClient, null, false));
+    }
+
+    private static CloseableHttpClient createHttpClient(final Settings settings, final HttpRequestInterceptor trackRequests) {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerDomain());
+        connectionManager.setMaxTotal(Integer.MAX_VALUE);
+
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(TIMEOUT)
+                .setSocketTimeout(TIMEOUT)
+                .build();
+
+        return HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections((long) settings.getIdleTimeout(), TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                // cookies of one test must not be sent by other tests
+                .disableCookieManagement()
+                .addInterceptorFirst(REMOVE_CONTENT_LENGTH)
+                .addInterceptorFirst(trackRequests)
+                .build();
+    }
+
+    /**
+     * Runs a blocking request and the check of its response. If the run is cancelled meanwhile, the requests sent
+     * by the current thread are aborted, the shared client stays open for the remaining tests.
+     *
+     * @param exchange sends the request with the blocking clients and reads the response
+     * @param <T> type of the result
+     * @return result of the exchange
+     * @throws IOException if the exchange fails or is aborted
+     */
+    public <T> T abortOnCancel(final BlockingExchange<T> exchange) throws IOException {
+        final BlockingRequests requests = new BlockingRequests();
+        final Runnable removeCancellation = cancellation.onCancel(requests::abort);
+        blockingRequests.set(requests);
+        try {
+            return exchange.run();
+        } finally {
+            blockingRequests.remove();
+            removeCancellation.run();
+        }
+    }
+
+    /**
+     * Registers a request of the non-blocking client, that the current thread waits for. Within
+     * {@link #abortOnCancel(BlockingExchange)} it is cancelled like the requests of the blocking clients.
+     *
+     * @param response future of the response, that is cancelled if the run is cancelled
+     */
+    public void addBlockingRequest(final Future<?> response) {
+        final BlockingRequests requests = blockingRequests.get();
+        if (requests != null) {
+            requests.add(() -> response.cancel(true));
+        }
+    }
+
+    private void trackBlockingRequest(final HttpRequest request, final HttpContext httpContext) {
+        final BlockingRequests requests = blockingRequests.get();
+        if (requests != null && request instanceof HttpRequestWrapper
+                && ((HttpRequestWrapper) request).getOriginal() instanceof HttpUriRequest) {
+            requests.add(((HttpUriRequest) ((HttpRequestWrapper) request).getOriginal())::abort);
+        }
+    }
+
+    private CloseableHttpAsyncClient createAsyncClient() throws IOException {
+        final IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setConnectTimeout(TIMEOUT)
+                .setSoTimeout(TIMEOUT)
+                .build();
+        final PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerDomain());
+        connectionManager.setMaxTotal(Integer.MAX_VALUE);
+
+        final int idleTimeout = settings.getIdleTimeout();
+        getScheduler().scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+        }, idleTimeout, idleTimeout, TimeUnit.SECONDS);
+
+        final CloseableHttpAsyncClient result = HttpAsyncClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                // cookies of one test must not be sent by other tests
+                .disableCookieManagement()
+                .addInterceptorFirst(REMOVE_CONTENT_LENGTH)
+                .build();
+        result.start();
+
+        return result;
     }
 
     /**
@@ -82,13 +341,12 @@ public class Context {
         InputStream result = null;
         if (body != null) {
             if (body.startsWith("@")) {
-                String fileName = body.replaceAll("^@", "");                
-                if (fileName != null && !fileName.isEmpty()) {
-                    System.out.println("\t\tImporting file: " + fileName);
-                    Path file = (fileName.startsWith("/"))
-                            ? Paths.get(fileName)
-                            : Paths.get(contextPath, fileName);
-                    result = Files.newInputStream(file, StandardOpenOption.READ);
+                final Path file = getReferencedFile(body);
+                if (file != null) {
+                    final byte[] content = fixtures.get(file);
+                    result = (content != null)
+                            ? new ByteArrayInputStream(content)
+                            : Files.newInputStream(file, StandardOpenOption.READ);
                 }
             } else {
                 result = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
@@ -97,10 +355,358 @@ public class Context {
         return result;
     }
 
+    /**
+     * Returns the entity of a request with the given body. Unlike
+     * {@link #expandBodyField(String)} the size of the returned entity is known
+     * before it is sent, so the request is not sent chunked.
+     *
+     * @param body body, can be a json-string ("{'json': 'text'}") or file
+     * reference to a file that contains json ("@example.json").
+     * @return the content of the referenced file, the file itself if it is too
+     * large to be cached, the bytes of the string or null if there is no body
+     * @throws IOException if the referenced file does not exist
+     */
+    public Object expandRequestEntity(final String body) throws IOException {
+        Object result = null;
+        if (body != null) {
+            if (body.startsWith("@")) {
+                final Path file = getReferencedFile(body);
+                if (file != null) {
+                    if (!Files.isRegularFile(file)) {
+                        throw new NoSuchFileException(file.toString());
+                    }
+                    final byte[] content = fixtures.get(file);
+                    result = (content != null) ? content : file.toFile();
+                }
+            } else {
+                result = body.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the parsed JSON document of an expected body. Documents of referenced files are parsed once per run, if
+     * the file fits into the cache of referenced files.
+     *
+     * @param body body, can be a json-string ("{'json': 'text'}") or file
+     * reference to a file that contains json ("@example.json").
+     * @return parsed document, see {@link JsonComparator#parse(InputStream)}, or null if no file is referenced
+     * @throws IOException if the referenced file does not exist or the body is no valid JSON
+     */
+    public Object getExpectedJson(final String body) throws IOException {
+        if (!body.startsWith("@")) {
+            return JsonComparator.parse(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        final Path file = getReferencedFile(body);
+        if (file == null) {
+            return null;
+        }
+
+        final Object document = fixtures.getDocument(file, content -> JsonComparator.parse(new ByteArrayInputStream(content)));
+        if (document == null) {
+            try (InputStream stream = Files.newInputStream(file, StandardOpenOption.READ)) {
+                return JsonComparator.parse(stream);
+            }
+        }
+        return document;
+    }
+
+    private Path getReferencedFile(final String body) {
+        final String fileName = body.replaceAll("^@", "");
+        if (fileName.isEmpty()) {
+            return null;
+        }
+
+        System.out.println("\t\tImporting file: " + fileName);
+        return (fileName.startsWith("/"))
+                ? Paths.get(fileName)
+                : Paths.get(contextPath, fileName);
+    }
+
+    /**
+     * @return all groups of the configuration, only those of the shard if a shard is set
+     * @throws IllegalStateException if the groups are streamed
+     */
     public List<Group> getTestGroups() {
+        if (testConfiguration == null) {
+            throw new IllegalStateException("The groups are streamed, they can only be iterated once.");
+        }
         return testConfiguration.getGroups();
     }
 
+    /**
+     * Returns the groups in the order of the configuration. Streamed groups are parsed while they are iterated, so
+     * they can only be iterated once.
+     *
+     * @return iterator of the groups
+     */
+    public Iterator<Group> getTestGroupIterator() {
+        if (testConfiguration == null) {
+            return streamedGroupIterator;
+        }
+        return (testConfiguration.getGroups() != null) ? testConfiguration.getGroups().iterator() : Collections.emptyIterator();
+    }
+
+    /**
+     * @return true if the groups are parsed while the tests run
+     */
+    public boolean isStreaming() {
+        return testConfiguration == null;
+    }
+
+    /**
+     * @return error of the first invalid streamed group or unreadable file, that ended the run early, or null
+     */
+    public YAMLException getConfigurationError() {
+        return (streamedGroups != null) ? streamedGroups.error : null;
+    }
+
+    /**
+     * @return cancellation of this run, that tests and requests check
+     */
+    public Cancellation getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Reports a failed test or group. Unless all failures are collected, the run is cancelled: groups, that have not
+     * been started, are skipped and running tests are aborted.
+     */
+    public void failed() {
+        if (!settings.isContinueOnFailure()) {
+            cancellation.cancel();
+        }
+    }
+
+    /**
+     * @return durations of the groups of previous runs, that are updated by this run, or null if no history is kept
+     */
+    public GroupHistory getHistory() {
+        return history;
+    }
+
+    public FixtureCache getFixtures() {
+        return fixtures;
+    }
+
+    /**
+     * Returns the statistics of this run. They are updated while the tests are running.
+     *
+     * @return statistics of the run
+     */
+    public RunStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the latencies of the requests of this run.
+     *
+     * @return latency histograms of the run
+     */
+    public LatencyStatistics getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the client, that is shared by all tests of this run.
+     *
+     * @return shared client
+     */
+    public Client getClient() {
+        return client;
+    }
+
+    /**
+     * Returns the pooled blocking client, that the shared Jersey client uses as well.
+     *
+     * @return pooled blocking client
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Returns the non-blocking client, that is shared by all tests of this run.
+     * It is created and started on first use.
+     *
+     * @return shared non-blocking client
+     * @throws IOException if the I/O reactor can not be created
+     */
+    public synchronized CloseableHttpAsyncClient getAsyncClient() throws IOException {
+        if (asyncClient == null) {
+            asyncClient = createAsyncClient();
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Returns the scheduler for delayed tasks of this run. Scheduled tasks
+     * should be short and hand over longer work to an executor.
+     *
+     * @return shared scheduler
+     */
+    public synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "aiko-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    /**
+     * Returns the executor for tests of a group, that run concurrently because they do not depend on each other. With
+     * virtual threads every test runs on a virtual thread of its own. Otherwise each group, that runs at the same time,
+     * gets as many threads as connections per domain are allowed, further tests would only wait for a connection.
+     *
+     * @return shared executor, that queues tests if all threads are busy
+     */
+    public synchronized ExecutorService getTestExecutor() {
+        if (testExecutor == null && settings.isVirtualThreads()) {
+            testExecutor = Runner.newVirtualThreadExecutor();
+        } else if (testExecutor == null) {
+            final int maxThreads = (int) Math.min(Integer.MAX_VALUE,
+                    (long) settings.getParallelism() * settings.getMaxConnectionsPerDomain());
+            final AtomicInteger threads = new AtomicInteger();
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                final Thread thread = new Thread(runnable, "aiko-test-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // threads are only started when tests run concurrently and stopped when they are idle
+            executor.allowCoreThreadTimeOut(true);
+            testExecutor = executor;
+        }
+        return testExecutor;
+    }
+
+    /**
+     * Closes all connections of the shared clients and stops the scheduler.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (testExecutor != null) {
+            testExecutor.shutdownNow();
+        }
+        client.destroy();
+        httpClient.close();
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
+        if (streamedGroups != null) {
+            streamedGroups.close();
+        }
+    }
+
+    /**
+     * A request with the blocking clients and the check of its response, see {@link #abortOnCancel(BlockingExchange)}.
+     *
+     * @param <T> type of the result
+     */
+    public interface BlockingExchange<T> {
+
+        T run() throws IOException;
+    }
+
+    /**
+     * Requests of one blocking exchange. Requests, that are sent after the exchange was aborted, are aborted at once.
+     */
+    private static final class BlockingRequests {
+
+        private final List<Runnable> aborts = new ArrayList<>();
+
+        private boolean aborted;
+
+        private synchronized void add(final Runnable abort) {
+            if (aborted) {
+                abort.run();
+            } else {
+                aborts.add(abort);
+            }
+        }
+
+        private synchronized void abort() {
+            aborted = true;
+            aborts.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Reads the groups of the files one after another, only one file is open at a time. The iteration ends at the
+     * first invalid group or the first file, that can not be read, so the groups before it are still run and
+     * reported.
+     */
+    private static final class StreamedGroups implements Iterator<Group>, Closeable {
+
+        private final Iterator<File> files;
+
+        private GroupReader reader;
+
+        /**
+         * Group, that has been read by {@link #hasNext()} and not been returned yet.
+         */
+        private Group next;
+
+        /**
+         * Error of the first invalid group or unreadable file, null if all groups read so far are valid.
+         */
+        private YAMLException error;
+
+        private StreamedGroups(final List<File> files) throws IOException {
+            this.files = files.iterator();
+            this.reader = TestConfiguration.getGroupReader(this.files.next());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && error == null) {
+                try {
+                    next = read();
+                } catch (YAMLException e) {
+                    error = e;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Group next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Group result = next;
+            next = null;
+            return result;
+        }
+
+        private Group read() {
+            while (!reader.hasNext() && files.hasNext()) {
+                try {
+                    reader.close();
+                    reader = TestConfiguration.getGroupReader(files.next());
+                } catch (IOException e) {
+                    throw new YAMLException("Could not read configuration file: " + e.getMessage(), e);
+                }
+            }
+            return reader.hasNext() ? reader.next() : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
     @Override
     public String toString() {
         return "Context: Path = " + this.contextPath;
@@ -26,21 +26,33 @@ package de.neofonie.aiko;
 import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import java.io.IOException;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import de.neofonie.aiko.yaml.*;
 
-import static de.neofonie.aiko.Runner.TOTAL_TEST_COUNTER;
-
 /**
  * This engine runs one test and retries execution if specified in the test case.
  */
 public class Engine {
 
+    private static final String RETRY_AFTER = "Retry-After";
+
     /**
      * The context is used to expand the body content, if a file is referenced.
      */
     private final Context context;
 
+    /**
+     * The group of the test case, used for the statistics.
+     */
+    private final Group group;
+
     /**
      * The test case is run against this domain, e.g. http://localhost or https://some.domain:8443
      */
@@ -51,6 +63,11 @@ public class Engine {
      */
     private final TestCase testCase;
 
+    /**
+     * Number of this test within the run, used for the console output.
+     */
+    private long testNumber;
+
     /**
      * Creates a new instance with the given arguments.
      *
@@ -60,6 +77,7 @@ public class Engine {
      */
     public Engine(final Context context, final Group group, final TestCase testCase) {
         this.context = context;
+        this.group = group;
         this.domain = group.getDomain().replaceAll("/$", "");
         this.testCase = testCase;
     }
@@ -71,73 +89,286 @@ public class Engine {
      */
     public boolean executeTest() throws IOException {
         boolean result = false;
-        TOTAL_TEST_COUNTER++;
+        testNumber = context.getStatistics().startTest();
+
+        if (testCase.getLoad() != null) {
+            printTestName();
+            result = !isTestCaseInvalid() && new LoadTest(context, group, testCase).run();
+            finishLoadTest(result);
+            return result;
+        }
 
         final RetryStrategy retryStrategy = getRetryStrategy(testCase.getRetry());
         while (retryStrategy.isWithinRetryCount()) {
+            if (context.getCancellation().isCancelled()) {
+                return cancelTest();
+            }
             retryStrategy.printRetryNumber();
 
-            if (result = performTest()) {
+            try {
+                result = performTest(retryStrategy);
+            } catch (IOException | RuntimeException e) {
+                // the request was aborted by the cancellation
+                if (context.getCancellation().isCancelled()) {
+                    return cancelTest();
+                }
+                throw e;
+            }
+
+            if (result) {
+                break;
+            } else if (isNotRetryable(retryStrategy)) {
                 break;
-            } else {
-                wait(retryStrategy.getRetryDelay());
             }
 
+            // no delay after the last attempt
+            final long retryDelay = retryStrategy.getRetryDelay();
             retryStrategy.increaseCurrentRetryCount();
+            if (retryStrategy.isWithinRetryCount()) {
+                context.getStatistics().addRetry();
+                waitForRetry(retryDelay);
+            }
         }
 
+        context.getStatistics().finishTest(result);
         return result;
     }
 
+    private void finishLoadTest(final boolean result) {
+        if (!result && context.getCancellation().isCancelled()) {
+            context.getStatistics().cancelTest();
+        } else {
+            context.getStatistics().finishTest(result);
+        }
+    }
+
+    /**
+     * Counts and prints a test, that is aborted because the run was cancelled.
+     *
+     * @return false
+     */
+    private boolean cancelTest() {
+        System.out.println("\t[ERROR] Cancelled after a failure.");
+        context.getStatistics().cancelTest();
+        return false;
+    }
+
+    /**
+     * Executes a test with a configured retry strategy without blocking a thread while the request is in flight or
+     * while waiting for a retry. Printing, expanding bodies and checking the response is done on the given executor.
+     *
+     * @param executor executor for the work between sending a request and receiving its response
+     * @return future of the result: true - successful | false - failed
+     */
+    public CompletableFuture<Boolean> executeTestAsync(final Executor executor) {
+        testNumber = context.getStatistics().startTest();
+
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        if (testCase.getLoad() != null) {
+            executor.execute(() -> performLoadTestAsync(executor, result));
+            return result;
+        }
+
+        final RetryStrategy retryStrategy = getRetryStrategy(testCase.getRetry());
+        executor.execute(() -> performTestAsync(retryStrategy, executor, result));
+
+        return result;
+    }
+
+    private void performLoadTestAsync(final Executor executor, final CompletableFuture<Boolean> result) {
+        printTestName();
+        if (isTestCaseInvalid()) {
+            context.getStatistics().finishTest(false);
+            result.complete(false);
+            return;
+        }
+
+        try {
+            new LoadTest(context, group, testCase).runAsync(executor).whenComplete((success, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    finishLoadTest(success);
+                    result.complete(success);
+                }
+            });
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private void performTestAsync(final RetryStrategy retryStrategy, final Executor executor, final CompletableFuture<Boolean> result) {
+        if (context.getCancellation().isCancelled()) {
+            result.complete(cancelTest());
+            return;
+        }
+        retryStrategy.printRetryNumber();
+
+        performTestAsync(executor, retryStrategy).whenComplete((success, error) -> {
+            if (error != null && context.getCancellation().isCancelled()) {
+                // completed by the cancelling thread, the output belongs to the executor of this test
+                executor.execute(() -> result.complete(cancelTest()));
+            } else if (error != null) {
+                result.completeExceptionally(error);
+            } else if (success) {
+                context.getStatistics().finishTest(true);
+                result.complete(true);
+            } else if (isNotRetryable(retryStrategy)) {
+                context.getStatistics().finishTest(false);
+                result.complete(false);
+            } else {
+                final long retryDelay = retryStrategy.getRetryDelay();
+                retryStrategy.increaseCurrentRetryCount();
+                if (retryStrategy.isWithinRetryCount()) {
+                    context.getStatistics().addRetry();
+                    final ScheduledFuture<?> retry = context.getScheduler().schedule(
+                            () -> executor.execute(() -> performTestAsync(retryStrategy, executor, result)),
+                            retryDelay, TimeUnit.MILLISECONDS);
+                    final Runnable removeCancellation = context.getCancellation().onCancel(() -> {
+                        if (retry.cancel(false)) {
+                            executor.execute(() -> result.complete(cancelTest()));
+                        }
+                    });
+                    result.whenComplete((ignored, resultError) -> removeCancellation.run());
+                } else {
+                    context.getStatistics().finishTest(false);
+                    result.complete(false);
+                }
+            }
+        });
+    }
+
     private RetryStrategy getRetryStrategy(final Retry retry) {
         if (retry == null) {
             return new RetryStrategy();
         } else {
-            return new RetryStrategy(retry.getCount(), retry.getDelay());
+            return new RetryStrategy(retry.getCount(), retry.getDelay(), retry.getBackoffPolicy(),
+                    retry.getMaxDelay(), retry.getStatuses());
+        }
+    }
+
+    private boolean isNotRetryable(final RetryStrategy retryStrategy) {
+        if (retryStrategy.isRetryable()) {
+            return false;
+        }
+
+        System.out.println("\tThe status of the response is not retried.");
+        return true;
+    }
+
+    private boolean performTest(final RetryStrategy retryStrategy) throws IOException {
+        printTestName();
+        if (isTestCaseInvalid()) {
+            return false;
+        }
+
+        return context.abortOnCancel(() -> {
+            final RequestTiming timing = new RequestTiming();
+            final ClientResponse response = testCase.getRequest().performRequest(domain, context, timing);
+            timing.firstByteReceived();
+
+            return checkResponse(response, timing, retryStrategy);
+        });
+    }
+
+    private CompletableFuture<Boolean> performTestAsync(final Executor executor, final RetryStrategy retryStrategy) {
+        printTestName();
+        if (isTestCaseInvalid()) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        try {
+            final RequestTiming timing = new RequestTiming();
+            return testCase.getRequest().performRequestAsync(domain, context, timing).thenApplyAsync(response -> {
+                try {
+                    return checkResponse(response, timing, retryStrategy);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (IOException e) {
+            final CompletableFuture<Boolean> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
         }
     }
 
-    private boolean performTest() throws IOException {
+    private void printTestName() {
         String testCaseName;
         if (testCase.getName() == null) {
             testCaseName = "Test";
         } else {
             testCaseName = "'" + testCase.getName() + "'";
         }
-        System.out.println("\n\t" + TOTAL_TEST_COUNTER + ". Running " + testCaseName + "...");
+        System.out.println("\n\t" + testNumber + ". Running " + testCaseName + "...");
+    }
 
+    private boolean isTestCaseInvalid() {
         final RequestDefinition requestDefinition = testCase.getRequest();
         final ResponseDefinition responseDefinition = testCase.getResponse();
 
         if (requestDefinition == null || requestDefinition.isInvalid()) {
             System.out.println("\t[ERROR] No complete requestDefinition description found.\nRequestDefinition: " + requestDefinition);
-            return false;
+            return true;
         }
 
         if (responseDefinition == null || responseDefinition.isInvalid()) {
             System.out.println("\t[ERROR] No complete response description found.\nResponseDefinition: " + responseDefinition);
-            return false;
+            return true;
         }
 
-        ClientResponse response = null;
-        try {
-            response = requestDefinition.performRequest(domain, context);
+        if (testCase.getLoad() != null && testCase.getLoad().isInvalid()) {
+            System.out.println("\t[ERROR] No complete load description found.\nLoad: " + testCase.getLoad());
+            return true;
+        }
 
+        return false;
+    }
+
+    /**
+     * Checks the response against the response definition and closes it. The rest of the body, that is not needed
+     * for the check, is read before the latency is recorded and checked. The status and Retry-After header of a
+     * failed response are passed to the retry strategy.
+     */
+    private boolean checkResponse(final ClientResponse response, final RequestTiming timing,
+                                  final RetryStrategy retryStrategy) throws IOException {
+        final ResponseDefinition responseDefinition = testCase.getResponse();
+        if (response == null) {
+            return !responseDefinition.doesNotMatchResponse(null, context);
+        }
+
+        final CountingInputStream entityStream = new CountingInputStream(response.getEntityInputStream()) {
+            @Override
+            protected synchronized void afterRead(final int n) {
+                super.afterRead(n);
+                if (n == -1) {
+                    timing.completed();
+                }
+            }
+        };
+        response.setEntityInputStream(entityStream);
+
+        try {
             printResponseData(response);
 
-            if (responseDefinition.doesNotMatchResponse(response, context)) {
+            final boolean matches = !responseDefinition.doesNotMatchResponse(response, context);
+            IOUtils.skip(entityStream, Long.MAX_VALUE);
+            timing.completed();
+            context.getLatencies().record(group, testCase, timing.getLatency());
+
+            if (!matches || responseDefinition.isTooSlow(timing)) {
+                retryStrategy.responseFailed(response.getStatus(), response.getHeaders().getFirst(RETRY_AFTER));
                 return false;
             }
 
             System.out.println("\tSuccess");
             return true;
         } finally {
-            if (response != null) {
-                try {
-                    response.close();
-                } catch (ClientHandlerException che) {
-                    System.out.println("Could not close connection. Reason: " + che.getMessage());
-                }
+            context.getStatistics().addBytesReceived(entityStream.getByteCount());
+            try {
+                response.close();
+            } catch (ClientHandlerException che) {
+                System.out.println("Could not close connection. Reason: " + che.getMessage());
             }
         }
     }
@@ -155,9 +386,9 @@ public class Engine {
         }
     }
 
-    private void wait(final int ms) {
+    private void waitForRetry(final long ms) {
         try {
-            Thread.sleep(ms);
+            context.getCancellation().await(ms);
         } catch (InterruptedException ie) {
             System.out.println("Problem during retry wait: " + ie.getMessage());
         }
@@ -0,0 +1,200 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the content of referenced files in memory, so that fixtures used by many tests or retries are read from disk
+ * only once. A file can also keep a document parsed from it, that is removed together with the file. The cache is
+ * limited by the sum of the file sizes and the estimated sizes of the documents, the least recently used files are
+ * removed first. Files larger than the limit are not cached.
+ */
+public class FixtureCache {
+
+    /**
+     * A parsed document is counted as this many times the size of its file, a rough estimate of its maps, lists and
+     * strings.
+     */
+    static final int DOCUMENT_WEIGHT = 4;
+
+    /**
+     * Maximum number of bytes of all cached files.
+     */
+    private final long maxBytes;
+
+    /**
+     * Content per absolute path in access order. Guarded by this.
+     */
+    private final LinkedHashMap<Path, Fixture> fixtures = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Number of bytes of all cached files and documents. Guarded by this.
+     */
+    private long size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxBytes maximum number of bytes of all cached files, 0 disables the cache
+     */
+    public FixtureCache(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the content of the given file. The returned array is shared by all callers and must not be modified.
+     *
+     * @param file the file to read
+     * @return content of the file or null if the file is too large to be cached
+     * @throws IOException if the file does not exist or can not be read
+     */
+    public byte[] get(final Path file) throws IOException {
+        final Path key = file.toAbsolutePath().normalize();
+
+        synchronized (this) {
+            final Fixture fixture = fixtures.get(key);
+            if (fixture != null) {
+                hits.increment();
+                return fixture.content;
+            }
+        }
+
+        misses.increment();
+        if (Files.size(key) > maxBytes) {
+            return null;
+        }
+
+        final byte[] content = Files.readAllBytes(key);
+        put(key, content);
+        return content;
+    }
+
+    /**
+     * Returns the document parsed from the given file. The document is parsed once and kept as long as the file is
+     * cached. The returned document is shared by all callers and must not be modified.
+     *
+     * @param file the file to read
+     * @param parser parses the content of the file
+     * @return parsed document or null if the file is too large to be cached
+     * @throws IOException if the file does not exist, can not be read or parsed
+     */
+    public Object getDocument(final Path file, final DocumentParser parser) throws IOException {
+        final Path key = file.toAbsolutePath().normalize();
+
+        synchronized (this) {
+            final Fixture fixture = fixtures.get(key);
+            if (fixture != null && fixture.document != null) {
+                hits.increment();
+                return fixture.document;
+            }
+        }
+
+        final byte[] content = get(key);
+        if (content == null) {
+            return null;
+        }
+
+        final Object document = parser.parse(content);
+        putDocument(key, content, document);
+        return document;
+    }
+
+    private synchronized void put(final Path key, final byte[] content) {
+        final Fixture previous = fixtures.put(key, new Fixture(content));
+        size += content.length - ((previous != null) ? previous.getSize() : 0);
+        removeEldest();
+    }
+
+    private synchronized void putDocument(final Path key, final byte[] content, final Object document) {
+        final Fixture fixture = fixtures.get(key);
+        // the file may have been removed or read again in the meantime
+        if (fixture != null && fixture.content == content && fixture.document == null) {
+            fixture.document = document;
+            size += (long) content.length * DOCUMENT_WEIGHT;
+            removeEldest();
+        }
+    }
+
+    private void removeEldest() {
+        final Iterator<Map.Entry<Path, Fixture>> eldest = fixtures.entrySet().iterator();
+        while (size > maxBytes && eldest.hasNext()) {
+            size -= eldest.next().getValue().getSize();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * @return number of bytes of all cached files
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Parses the content of a file, e.g. an expected JSON document.
+     */
+    public interface DocumentParser {
+
+        Object parse(byte[] content) throws IOException;
+    }
+
+    /**
+     * Content of a file and the document parsed from it.
+     */
+    private static final class Fixture {
+
+        private final byte[] content;
+
+        /**
+         * Parsed document, null if it has not been parsed yet.
+         */
+        private Object document;
+
+        private Fixture(final byte[] content) {
+            this.content = content;
+        }
+
+        private long getSize() {
+            return content.length + ((document != null) ? (long) content.length * DOCUMENT_WEIGHT : 0);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.Executor;
+
+/**
+ * Console used while groups run concurrently. The output of a running group is collected and printed as one block
+ * when the group has finished, so the output of different groups does not interleave.
+ */
+public class GroupConsole extends PrintStream {
+
+    /**
+     * The original console, that receives the collected output.
+     */
+    private final PrintStream console;
+
+    /**
+     * Buffer of the current thread. Output of threads without buffer goes directly to the console.
+     */
+    private final ThreadLocal<ByteArrayOutputStream> buffers;
+
+    /**
+     * Creates a new instance that writes to the given console.
+     *
+     * @param console the original console, e.g. System.out
+     */
+    public GroupConsole(final PrintStream console) {
+        this(console, new ThreadLocal<>());
+    }
+
+    private GroupConsole(final PrintStream console, final ThreadLocal<ByteArrayOutputStream> buffers) {
+        super(new CapturingOutputStream(console, buffers), true);
+        this.console = console;
+        this.buffers = buffers;
+    }
+
+    /**
+     * Starts collecting all output of the current thread.
+     */
+    public void startCapture() {
+        buffers.set(new ByteArrayOutputStream());
+    }
+
+    /**
+     * Stops collecting the output of the current thread and prints the collected output as one block.
+     */
+    public void stopCapture() {
+        flush();
+        final ByteArrayOutputStream buffer = buffers.get();
+        buffers.remove();
+
+        if (buffer != null) {
+            print(buffer);
+        }
+    }
+
+    /**
+     * Returns an executor, that collects the output of all tasks in the given buffer. This is used for groups, whose
+     * tasks are run on different threads one after another.
+     *
+     * @param executor the tasks are run on this executor
+     * @param buffer the output of the tasks is collected in this buffer
+     * @return capturing executor
+     */
+    public Executor capturing(final Executor executor, final ByteArrayOutputStream buffer) {
+        return command -> executor.execute(() -> {
+            buffers.set(buffer);
+            try {
+                command.run();
+            } finally {
+                flush();
+                buffers.remove();
+            }
+        });
+    }
+
+    /**
+     * Prints the collected output as one block.
+     *
+     * @param buffer collected output
+     */
+    public void print(final ByteArrayOutputStream buffer) {
+        synchronized (console) {
+            console.print(buffer.toString());
+            console.flush();
+        }
+    }
+
+    /**
+     * Writes to the buffer of the current thread or to the console if the thread does not capture its output.
+     */
+    private static class CapturingOutputStream extends OutputStream {
+
+        private final PrintStream console;
+        private final ThreadLocal<ByteArrayOutputStream> buffers;
+
+        CapturingOutputStream(final PrintStream console, final ThreadLocal<ByteArrayOutputStream> buffers) {
+            this.console = console;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            getTarget().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            getTarget().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffers.get() == null) {
+                console.flush();
+            }
+        }
+
+        private OutputStream getTarget() {
+            final ByteArrayOutputStream buffer = buffers.get();
+            return buffer != null ? buffer : console;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Durations of the groups of previous runs, used to start the longest groups first when groups run concurrently.
+ * Durations are kept per group name in milliseconds, a new duration is averaged with the previous one, so a single
+ * slow run does not change the order completely.
+ */
+public class GroupHistory {
+
+    /**
+     * Weight of a new duration compared to the previous duration of a group.
+     */
+    private static final double WEIGHT = 0.5;
+
+    private static final String GROUPS = "groups";
+
+    private final ConcurrentMap<String, Long> durations = new ConcurrentHashMap<>();
+
+    /**
+     * Reads the history of the given file.
+     *
+     * @param file history file, that was written with {@link #write(Path)}
+     * @return read history, empty if the file does not exist yet
+     * @throws IOException if the file can not be read or is no history
+     */
+    public static GroupHistory read(final Path file) throws IOException {
+        final GroupHistory history = new GroupHistory();
+
+        final byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return history;
+        }
+
+        try {
+            final JSONObject groups = new JSONObject(new String(content, StandardCharsets.UTF_8)).getJSONObject(GROUPS);
+            final Iterator<?> names = groups.keys();
+            while (names.hasNext()) {
+                final String name = (String) names.next();
+                history.durations.put(name, groups.getLong(name));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Invalid history " + file + ": " + e.getMessage(), e);
+        }
+
+        return history;
+    }
+
+    /**
+     * Writes the durations of all groups as JSON to the given file, sorted by name.
+     *
+     * @param file the history is written to this file
+     * @throws IOException if the file can not be written
+     */
+    public void write(final Path file) throws IOException {
+        try {
+            final JSONObject groups = new JSONObject();
+            for (Map.Entry<String, Long> duration : new TreeMap<>(durations).entrySet()) {
+                groups.put(duration.getKey(), duration.getValue());
+            }
+
+            final JSONObject history = new JSONObject();
+            history.put(GROUPS, groups);
+            Files.write(file, history.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Could not create history.", e);
+        }
+    }
+
+    /**
+     * Records the duration of a group, that has been run completely.
+     *
+     * @param name name of the group
+     * @param millis duration of the group in milliseconds
+     */
+    public void record(final String name, final long millis) {
+        durations.merge(String.valueOf(name), millis, (previous, current) -> Math.round(previous * (1 - WEIGHT) + current * WEIGHT));
+    }
+
+    /**
+     * @param name name of a group
+     * @return expected duration of the group in milliseconds or null if the group has not been run yet
+     */
+    public Long getDuration(final String name) {
+        return durations.get(String.valueOf(name));
+    }
+
+    /**
+     * Orders the given groups by their expected duration, the longest first. Groups without a duration are expected
+     * to take as long as the average of the known groups. Groups with the same expected duration keep their order, so
+     * without any history the order of the configuration is kept.
+     *
+     * @param groups groups of the configuration
+     * @return groups in the order they should be started
+     */
+    public List<Group> schedule(final List<Group> groups) {
+        if (groups == null) {
+            return Collections.emptyList();
+        }
+
+        long known = 0;
+        long total = 0;
+        for (Group group : groups) {
+            final Long duration = getDuration(group.getName());
+            if (duration != null) {
+                known++;
+                total += duration;
+            }
+        }
+        final long average = (known > 0) ? total / known : 0;
+
+        final List<Group> result = new ArrayList<>(groups);
+        result.sort(Comparator.comparingLong((Group group) -> {
+            final Long duration = getDuration(group.getName());
+            return (duration != null) ? duration : average;
+        }).reversed());
+        return result;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import javax.ws.rs.core.MultivaluedMap;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Checks the values of a response header. The expected value is either a plain value, that has to be equal to the
+ * header value, or a map with one of the following matchers:
+ * <ul>
+ * <li>{@code regex} - the header value has to match the regular expression completely</li>
+ * <li>{@code prefix} - the header value has to start with the given value</li>
+ * <li>{@code contains} - the header value has to contain the given value</li>
+ * <li>{@code range} - the header value has to be a number within {@code min..max}, both ends are optional and
+ * inclusive</li>
+ * </ul>
+ * Header names are compared case-insensitive. If a header has more than one value, one of them has to match.
+ * Matchers are compiled once and can be used by many threads.
+ */
+public class HeaderMatcher {
+
+    private static final String RANGE_SEPARATOR = "..";
+
+    /**
+     * Name of the header.
+     */
+    private final String name;
+
+    /**
+     * Description of the expected value for error messages.
+     */
+    private final String description;
+
+    private final Predicate<String> predicate;
+
+    private HeaderMatcher(final String name, final String description, final Predicate<String> predicate) {
+        this.name = name;
+        this.description = description;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Compiles the expected value of a header.
+     *
+     * @param name name of the header
+     * @param expected expected value or map with one matcher
+     * @return compiled matcher
+     * @throws IllegalArgumentException if the matcher is unknown or its value is invalid
+     */
+    public static HeaderMatcher compile(final String name, final Object expected) {
+        if (!(expected instanceof Map)) {
+            final String value = String.valueOf(expected);
+            return new HeaderMatcher(name, "'" + value + "'", value::equals);
+        }
+
+        final Map<?, ?> matcher = (Map<?, ?>) expected;
+        if (matcher.size() != 1) {
+            throw new IllegalArgumentException("Header '" + name + "' needs exactly one matcher - given " + matcher.keySet() + ".");
+        }
+
+        final Map.Entry<?, ?> entry = matcher.entrySet().iterator().next();
+        final String value = String.valueOf(entry.getValue());
+        switch (String.valueOf(entry.getKey())) {
+            case "regex":
+                final Pattern pattern = compilePattern(name, value);
+                return new HeaderMatcher(name, "matching '" + value + "'", actual -> pattern.matcher(actual).matches());
+            case "prefix":
+                return new HeaderMatcher(name, "starting with '" + value + "'", actual -> actual.startsWith(value));
+            case "contains":
+                return new HeaderMatcher(name, "containing '" + value + "'", actual -> actual.contains(value));
+            case "range":
+                return compileRange(name, value);
+            default:
+                throw new IllegalArgumentException("Unknown matcher '" + entry.getKey() + "' for header '" + name
+                        + "' - expected regex, prefix, contains or range.");
+        }
+    }
+
+    private static Pattern compilePattern(final String name, final String regex) {
+        try {
+            return Pattern.compile(regex);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regex for header '" + name + "': " + e.getDescription() + ".", e);
+        }
+    }
+
+    private static HeaderMatcher compileRange(final String name, final String range) {
+        final int separator = range.indexOf(RANGE_SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid range '" + range + "' for header '" + name + "' - expected min..max.");
+        }
+
+        final BigDecimal min = parseBound(name, range, range.substring(0, separator));
+        final BigDecimal max = parseBound(name, range, range.substring(separator + RANGE_SEPARATOR.length()));
+        return new HeaderMatcher(name, "in range " + range.trim(), actual -> {
+            final BigDecimal number = parseNumber(actual);
+            return number != null && (min == null || number.compareTo(min) >= 0) && (max == null || number.compareTo(max) <= 0);
+        });
+    }
+
+    private static BigDecimal parseBound(final String name, final String range, final String bound) {
+        if (bound.trim().isEmpty()) {
+            return null;
+        }
+
+        final BigDecimal result = parseNumber(bound);
+        if (result == null) {
+            throw new IllegalArgumentException("Invalid range '" + range + "' for header '" + name + "' - expected min..max.");
+        }
+        return result;
+    }
+
+    private static BigDecimal parseNumber(final String value) {
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks the header of the given headers.
+     *
+     * @param headers headers of a response
+     * @return description of the difference or null if the header matches
+     */
+    public String findMismatch(final MultivaluedMap<String, String> headers) {
+        final List<String> values = getValues(headers);
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && predicate.test(value)) {
+                    return null;
+                }
+            }
+        }
+
+        final String actual = (values == null || values.isEmpty()) ? "none" : (values.size() == 1)
+                ? "'" + values.get(0) + "'" : values.toString();
+        return "Wrong header '" + name + "': Expected " + description + " - got " + actual + ".";
+    }
+
+    private List<String> getValues(final MultivaluedMap<String, String> headers) {
+        final List<String> values = headers.get(name);
+        if (values != null) {
+            return values;
+        }
+
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
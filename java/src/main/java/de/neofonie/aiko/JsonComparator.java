@@ -0,0 +1,311 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares a JSON body with an expected JSON document while the body is read. Objects must have exactly the expected
+ * fields in any order, arrays the expected elements in any order. Numbers are equal if they have the same value, e.g.
+ * 1 and 1.0.
+ * <p>
+ * Only the expected document is kept in memory. The body is compared token by token, only the element of an array,
+ * that is compared at the moment, is read completely, because it may match any of the expected elements.
+ */
+public class JsonComparator {
+
+    static final JsonFactory JSON_FACTORY = new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    /**
+     * Represents null values in parsed documents.
+     */
+    static final Object NULL = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+    /**
+     * Represents an empty document.
+     */
+    private static final Object EMPTY = new Object();
+
+    private static final int MAX_VALUE_LENGTH = 100;
+
+    /**
+     * Parses an expected document. Objects are parsed as maps, arrays as lists, numbers as {@link BigDecimal}.
+     *
+     * @param expected JSON document
+     * @return parsed document, that can be passed to {@link #findMismatch(Object, InputStream)} any number of times
+     * @throws IOException if the document is no valid JSON or can not be read
+     */
+    public static Object parse(final InputStream expected) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(expected)) {
+            return (parser.nextToken() != null) ? readValue(parser) : EMPTY;
+        }
+    }
+
+    /**
+     * Compares the given body with the expected document and returns the first difference. The body is read up to
+     * the first difference, a matching body up to its end, so content after the document is a difference as well.
+     *
+     * @param expected document created by {@link #parse(InputStream)}
+     * @param actual JSON body
+     * @return description of the first difference with its JSON path or null if the body matches
+     * @throws IOException if the body can not be read
+     */
+    public static String findMismatch(final Object expected, final InputStream actual) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(actual)) {
+            final JsonToken token = parser.nextToken();
+            if (expected == EMPTY || token == null) {
+                return (expected == EMPTY && token == null) ? null
+                        : "$: Expected " + describeBody(expected != EMPTY) + " - got " + describeBody(token != null);
+            }
+            final String mismatch = compare(expected, parser, "$");
+            if (mismatch == null && parser.nextToken() != null) {
+                return "$: Unexpected content after the JSON document";
+            }
+            return mismatch;
+        } catch (JsonParseException e) {
+            return "Invalid JSON: " + e.getOriginalMessage();
+        }
+    }
+
+    /**
+     * Compares the value at the current token with the expected value and reads the value up to the first difference.
+     */
+    static String compare(final Object expected, final JsonParser parser, final String path) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                if (!(expected instanceof Map)) {
+                    return getValueMismatch(path, expected, Collections.emptyMap());
+                }
+                return compareObject((Map<?, ?>) expected, parser, path);
+            case START_ARRAY:
+                if (!(expected instanceof List)) {
+                    return getValueMismatch(path, expected, Collections.emptyList());
+                }
+                return compareArray((List<?>) expected, parser, path);
+            default:
+                return compare(expected, readValue(parser), path);
+        }
+    }
+
+    private static String compareObject(final Map<?, ?> expected, final JsonParser parser, final String path) throws IOException {
+        final Set<String> foundFields = new HashSet<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final String fieldPath = path + "." + field;
+            parser.nextToken();
+
+            if (!expected.containsKey(field)) {
+                return fieldPath + ": Unexpected field";
+            }
+
+            final String mismatch = compare(expected.get(field), parser, fieldPath);
+            if (mismatch != null) {
+                return mismatch;
+            }
+            foundFields.add(field);
+        }
+
+        for (Object field : expected.keySet()) {
+            if (!foundFields.contains(field)) {
+                return path + "." + field + ": Expected field is missing";
+            }
+        }
+
+        return null;
+    }
+
+    private static String compareArray(final List<?> expected, final JsonParser parser, final String path) throws IOException {
+        final boolean[] matched = new boolean[expected.size()];
+        int index = 0;
+
+        for (; parser.nextToken() != JsonToken.END_ARRAY; index++) {
+            final Object actual = readValue(parser);
+            final String elementPath = path + "[" + index + "]";
+
+            final int match = findMatchingElement(expected, matched, actual, index, elementPath);
+            if (match < 0) {
+                if (index < expected.size() && !matched[index]) {
+                    return compare(expected.get(index), actual, elementPath);
+                }
+                return elementPath + ": Unexpected element " + describe(actual);
+            }
+            matched[match] = true;
+        }
+
+        if (index < expected.size()) {
+            return path + ": Expected " + expected.size() + " elements - got " + index;
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds an expected element, that has not been matched yet and is equal to the actual element. The element at
+     * the same index is tried first.
+     */
+    private static int findMatchingElement(final List<?> expected, final boolean[] matched, final Object actual,
+                                           final int index, final String path) {
+        if (index < expected.size() && !matched[index] && compare(expected.get(index), actual, path) == null) {
+            return index;
+        }
+
+        for (int i = 0; i < expected.size(); i++) {
+            if (!matched[i] && i != index && compare(expected.get(i), actual, path) == null) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Compares two parsed values.
+     */
+    static String compare(final Object expected, final Object actual, final String path) {
+        if (expected instanceof Map && actual instanceof Map) {
+            final Map<?, ?> expectedObject = (Map<?, ?>) expected;
+            final Map<?, ?> actualObject = (Map<?, ?>) actual;
+
+            for (Map.Entry<?, ?> field : actualObject.entrySet()) {
+                final String fieldPath = path + "." + field.getKey();
+                if (!expectedObject.containsKey(field.getKey())) {
+                    return fieldPath + ": Unexpected field";
+                }
+                final String mismatch = compare(expectedObject.get(field.getKey()), field.getValue(), fieldPath);
+                if (mismatch != null) {
+                    return mismatch;
+                }
+            }
+            for (Object field : expectedObject.keySet()) {
+                if (!actualObject.containsKey(field)) {
+                    return path + "." + field + ": Expected field is missing";
+                }
+            }
+            return null;
+        }
+
+        if (expected instanceof List && actual instanceof List) {
+            final List<?> expectedArray = (List<?>) expected;
+            final List<?> actualArray = (List<?>) actual;
+            final boolean[] matched = new boolean[expectedArray.size()];
+
+            for (int i = 0; i < actualArray.size(); i++) {
+                final String elementPath = path + "[" + i + "]";
+                final int match = findMatchingElement(expectedArray, matched, actualArray.get(i), i, elementPath);
+                if (match < 0) {
+                    if (i < expectedArray.size() && !matched[i]) {
+                        return compare(expectedArray.get(i), actualArray.get(i), elementPath);
+                    }
+                    return elementPath + ": Unexpected element " + describe(actualArray.get(i));
+                }
+                matched[match] = true;
+            }
+            if (actualArray.size() < expectedArray.size()) {
+                return path + ": Expected " + expectedArray.size() + " elements - got " + actualArray.size();
+            }
+            return null;
+        }
+
+        if (expected instanceof BigDecimal && actual instanceof BigDecimal) {
+            return (((BigDecimal) expected).compareTo((BigDecimal) actual) == 0) ? null : getValueMismatch(path, expected, actual);
+        }
+
+        return expected.equals(actual) ? null : getValueMismatch(path, expected, actual);
+    }
+
+    private static String getValueMismatch(final String path, final Object expected, final Object actual) {
+        return path + ": Expected " + describe(expected) + " - got " + describe(actual);
+    }
+
+    private static String describeBody(final boolean hasContent) {
+        return hasContent ? "JSON content" : "an empty body";
+    }
+
+    private static String describe(final Object value) {
+        if (value instanceof Map) {
+            return "{...}";
+        } else if (value instanceof List) {
+            return "[...]";
+        } else if (value instanceof String) {
+            return "'" + StringUtils.abbreviate((String) value, MAX_VALUE_LENGTH) + "'";
+        }
+        return String.valueOf(value);
+    }
+
+    /**
+     * Reads the value at the current token completely.
+     */
+    static Object readValue(final JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                final Map<String, Object> object = new LinkedHashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    object.put(field, readValue(parser));
+                }
+                return object;
+            case START_ARRAY:
+                final List<Object> array = new ArrayList<>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.add(readValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDecimalValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return NULL;
+            default:
+                throw new JsonParseException("Unexpected token " + parser.getCurrentToken() + ".", parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares single values of a JSON body, that are selected by JSON paths, with expected values. Paths have to select
+ * exactly one value, e.g. {@code $.items[0].name} or {@code $['first name']}. Wildcards, filters and recursive descent
+ * are not supported.
+ * <p>
+ * All paths are evaluated in one pass while the body is read. Values, that are not selected by any path, are skipped
+ * without being kept in memory, and the body is read only until all paths are found.
+ */
+public class JsonPathMatcher {
+
+    /**
+     * Root of the tree of all paths. Paths with a common prefix share its nodes.
+     */
+    private final Node root = new Node();
+
+    /**
+     * Nodes of all paths in the order of the paths.
+     */
+    private final List<Node> paths = new ArrayList<>();
+
+    /**
+     * Compiles the given paths.
+     *
+     * @param expectedValues JSON paths and the values they have to select, values can be strings, numbers, booleans,
+     * null, lists or maps
+     * @throws IllegalArgumentException if a path is no valid JSON path or selects the same value as another path
+     */
+    public JsonPathMatcher(final Map<String, ?> expectedValues) {
+        for (Map.Entry<String, ?> entry : expectedValues.entrySet()) {
+            Node node = root;
+            for (Object segment : parsePath(entry.getKey())) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            if (node.expression != null) {
+                throw new IllegalArgumentException("JSON path '" + entry.getKey() + "' selects the same value as '"
+                        + node.expression + "'.");
+            }
+
+            node.expression = entry.getKey();
+            node.expected = toDocument(entry.getValue());
+            paths.add(node);
+        }
+    }
+
+    /**
+     * Compares the values selected by the paths with the expected values.
+     *
+     * @param actual JSON body
+     * @return descriptions of all differences with their JSON paths, empty if all values match
+     * @throws IOException if the body can not be read
+     */
+    public List<String> findMismatches(final InputStream actual) throws IOException {
+        final Evaluation evaluation = new Evaluation();
+
+        try (JsonParser parser = JsonComparator.JSON_FACTORY.createParser(actual)) {
+            if (parser.nextToken() != null) {
+                match(root, parser, evaluation);
+            }
+        } catch (JsonParseException e) {
+            return Collections.singletonList("Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        for (Node node : paths) {
+            if (!evaluation.resolved.contains(node)) {
+                evaluation.mismatches.add(node.expression + ": Expected path is missing");
+            }
+        }
+        return evaluation.mismatches;
+    }
+
+    /**
+     * Matches the value at the current token. Values without a path below them are skipped, the value of a path is
+     * compared while it is read, unless other paths select values inside of it.
+     */
+    private void match(final Node node, final JsonParser parser, final Evaluation evaluation) throws IOException {
+        if (node.expression != null) {
+            if (node.children.isEmpty()) {
+                final JsonStreamContext parent = parser.getCurrentToken().isStructStart()
+                        ? parser.getParsingContext().getParent() : parser.getParsingContext();
+                evaluation.resolve(node, JsonComparator.compare(node.expected, parser, node.expression));
+                // the comparison stops at the first difference, the rest of the value is skipped
+                while (parser.getParsingContext() != parent && parser.nextToken() != null) {
+                    parser.skipChildren();
+                }
+            } else {
+                match(node, JsonComparator.readValue(parser), evaluation);
+            }
+            return;
+        }
+
+        if (parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            while (!evaluation.isComplete() && parser.nextToken() == JsonToken.FIELD_NAME) {
+                final Node child = node.children.get(parser.getCurrentName());
+                parser.nextToken();
+                if (child != null) {
+                    match(child, parser, evaluation);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else if (parser.getCurrentToken() == JsonToken.START_ARRAY) {
+            for (int index = 0; !evaluation.isComplete() && parser.nextToken() != JsonToken.END_ARRAY; index++) {
+                final Node child = node.children.get(index);
+                if (child != null) {
+                    match(child, parser, evaluation);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches an already read value.
+     */
+    private void match(final Node node, final Object value, final Evaluation evaluation) {
+        if (node.expression != null) {
+            evaluation.resolve(node, JsonComparator.compare(node.expected, value, node.expression));
+        }
+
+        for (Map.Entry<Object, Node> child : node.children.entrySet()) {
+            final Object segment = child.getKey();
+            if (segment instanceof String && value instanceof Map && ((Map<?, ?>) value).containsKey(segment)) {
+                match(child.getValue(), ((Map<?, ?>) value).get(segment), evaluation);
+            } else if (segment instanceof Integer && value instanceof List && (Integer) segment < ((List<?>) value).size()) {
+                match(child.getValue(), ((List<?>) value).get((Integer) segment), evaluation);
+            }
+        }
+    }
+
+    /**
+     * Splits a JSON path into field names and array indexes.
+     */
+    static List<Object> parsePath(final String expression) {
+        if (!expression.startsWith("$")) {
+            throw invalidPath(expression);
+        }
+
+        final List<Object> segments = new ArrayList<>();
+        int position = 1;
+        while (position < expression.length()) {
+            final char c = expression.charAt(position);
+            if (c == '.') {
+                int end = position + 1;
+                while (end < expression.length() && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+                    end++;
+                }
+                final String field = expression.substring(position + 1, end);
+                if (field.isEmpty() || field.equals("*")) {
+                    throw invalidPath(expression);
+                }
+                segments.add(field);
+                position = end;
+            } else if (c == '[' && position + 1 < expression.length()) {
+                final char quote = expression.charAt(position + 1);
+                final int end;
+                if (quote == '\'' || quote == '"') {
+                    final int endQuote = expression.indexOf(quote, position + 2);
+                    if (endQuote < 0 || endQuote + 1 >= expression.length() || expression.charAt(endQuote + 1) != ']') {
+                        throw invalidPath(expression);
+                    }
+                    segments.add(expression.substring(position + 2, endQuote));
+                    end = endQuote + 1;
+                } else {
+                    end = expression.indexOf(']', position);
+                    final String index = (end < 0) ? "" : expression.substring(position + 1, end).trim();
+                    if (!index.matches("\\d+")) {
+                        throw invalidPath(expression);
+                    }
+                    segments.add(Integer.valueOf(index));
+                }
+                position = end + 1;
+            } else {
+                throw invalidPath(expression);
+            }
+        }
+        return segments;
+    }
+
+    private static IllegalArgumentException invalidPath(final String expression) {
+        return new IllegalArgumentException("Invalid JSON path '" + expression + "' - expected e.g. $.items[0].name.");
+    }
+
+    /**
+     * Converts a value of the test configuration to the representation of {@link JsonComparator#parse(InputStream)}.
+     */
+    private static Object toDocument(final Object value) {
+        if (value == null) {
+            return JsonComparator.NULL;
+        } else if (value instanceof Number) {
+            return new BigDecimal(value.toString());
+        } else if (value instanceof Map) {
+            final Map<String, Object> object = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+                object.put(String.valueOf(field.getKey()), toDocument(field.getValue()));
+            }
+            return object;
+        } else if (value instanceof List) {
+            final List<Object> array = new ArrayList<>();
+            for (Object element : (List<?>) value) {
+                array.add(toDocument(element));
+            }
+            return array;
+        }
+        return value;
+    }
+
+    private static class Node {
+
+        /**
+         * Field names and array indexes of the values below this node.
+         */
+        private final Map<Object, Node> children = new HashMap<>();
+
+        /**
+         * Path, that selects this node, null if no path ends here.
+         */
+        private String expression;
+
+        private Object expected;
+    }
+
+    /**
+     * State of the comparison of one body.
+     */
+    private class Evaluation {
+
+        private final Set<Node> resolved = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private final List<String> mismatches = new ArrayList<>();
+
+        private void resolve(final Node node, final String mismatch) {
+            resolved.add(node);
+            if (mismatch != null) {
+                mismatches.add(mismatch);
+            }
+        }
+
+        private boolean isComplete() {
+            return resolved.size() == paths.size();
+        }
+    }
+}
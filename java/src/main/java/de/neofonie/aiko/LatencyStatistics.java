@@ -0,0 +1,397 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.TestCase;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies of all requests of a run, recorded in histograms per test case, per group and for the whole run. The
+ * latency of a request is the time until its response has been received. Values are recorded in microseconds.
+ * <p>
+ * When a group is finished only the percentiles of the group and its test cases are kept, so the group and its test
+ * cases can be garbage collected.
+ */
+public class LatencyStatistics {
+
+    /**
+     * These percentiles are reported.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Number of significant decimal digits of the recorded values.
+     */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final String LINE_FORMAT = "%-40s %8s %9s %9s %9s %9s %9s%n";
+
+    /**
+     * Latencies of all requests.
+     */
+    private final Histogram run = newHistogram();
+
+    /**
+     * Latencies of the groups, that have not been finished yet.
+     */
+    private final ConcurrentMap<Group, GroupLatencies> groups = new ConcurrentHashMap<>();
+
+    /**
+     * Latencies of all groups in the order they were added.
+     */
+    private final List<GroupLatencies> groupList = new ArrayList<>();
+
+    /**
+     * Latencies per test case of the groups, that have not been finished yet.
+     */
+    private final ConcurrentMap<TestCase, Histogram> testCases = new ConcurrentHashMap<>();
+
+    /**
+     * Latencies of load tests measured from the intended start of each request, per test case.
+     */
+    private final ConcurrentMap<TestCase, Histogram> correctedTestCases = new ConcurrentHashMap<>();
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Records the latency of one request.
+     *
+     * @param group group of the test case
+     * @param testCase test case that sent the request
+     * @param nanos latency in nanoseconds
+     */
+    public void record(final Group group, final TestCase testCase, final long nanos) {
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+
+        run.recordValue(micros);
+        addGroupLatencies(group).histogram.recordValue(micros);
+        testCases.computeIfAbsent(testCase, key -> newHistogram()).recordValue(micros);
+    }
+
+    /**
+     * Adds a group, groups are printed and reported in the order they were added. A group is added with its first
+     * request, if it was not added before.
+     *
+     * @param group group of the run
+     */
+    public void addGroup(final Group group) {
+        addGroupLatencies(group);
+    }
+
+    private GroupLatencies addGroupLatencies(final Group group) {
+        return groups.computeIfAbsent(group, key -> {
+            final GroupLatencies result = new GroupLatencies(key);
+            synchronized (groupList) {
+                groupList.add(result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Keeps only the percentiles of a group and its test cases. No more requests of the group may be recorded.
+     *
+     * @param group group of the run, that has been finished
+     */
+    public void finishGroup(final Group group) {
+        final GroupLatencies latencies = groups.remove(group);
+        if (latencies != null) {
+            final List<TestLatencies> tests = getTestLatencies(group, true);
+            synchronized (latencies) {
+                latencies.finish(tests);
+            }
+        }
+    }
+
+    private List<TestLatencies> getTestLatencies(final Group group, final boolean remove) {
+        final List<TestLatencies> result = new ArrayList<>();
+        if (group.getTests() != null) {
+            for (TestCase testCase : group.getTests()) {
+                final Histogram histogram = remove ? testCases.remove(testCase) : testCases.get(testCase);
+                final Histogram corrected = remove ? correctedTestCases.remove(testCase) : correctedTestCases.get(testCase);
+                result.add(new TestLatencies(testCase.getName(), new Percentiles(histogram),
+                        (corrected != null) ? new Percentiles(corrected) : null));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Records the latency of one request of a load test measured from the point in time it should have been sent.
+     *
+     * @param testCase test case that sent the request
+     * @param nanos latency from the intended start in nanoseconds
+     */
+    public void recordCorrected(final TestCase testCase, final long nanos) {
+        correctedTestCases.computeIfAbsent(testCase, key -> newHistogram()).recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    public Histogram getRun() {
+        return run;
+    }
+
+    /**
+     * @param group a group of the run
+     * @return latencies of the group or null if it sent no request
+     */
+    public Histogram getGroup(final Group group) {
+        final GroupLatencies latencies = groups.get(group);
+        return (latencies != null && latencies.histogram.getTotalCount() > 0) ? latencies.histogram : null;
+    }
+
+    /**
+     * @param testCase a test case of the run
+     * @return latencies of the test case or null if it sent no request
+     */
+    public Histogram getTestCase(final TestCase testCase) {
+        return testCases.get(testCase);
+    }
+
+    /**
+     * @param testCase a test case of the run
+     * @return latencies of the test case from the intended start or null if it was no load test
+     */
+    public Histogram getCorrectedTestCase(final TestCase testCase) {
+        return correctedTestCases.get(testCase);
+    }
+
+    private List<GroupLatencies> getGroupList() {
+        synchronized (groupList) {
+            return new ArrayList<>(groupList);
+        }
+    }
+
+    /**
+     * Prints the percentiles of the run and of each group in the order the groups were added.
+     *
+     * @param out the percentiles are printed to this stream
+     */
+    public void print(final PrintStream out) {
+        if (run.getTotalCount() == 0) {
+            return;
+        }
+
+        out.println();
+        out.printf(LINE_FORMAT, "Latency (ms)", "count", "p50", "p90", "p99", "p99.9", "max");
+        printLine("All requests", new Percentiles(run), out);
+        for (GroupLatencies group : getGroupList()) {
+            final Percentiles percentiles = group.getPercentiles();
+            if (percentiles.count > 0) {
+                printLine("Group: '" + group.name + "'", percentiles, out);
+            }
+        }
+    }
+
+    private void printLine(final String name, final Percentiles percentiles, final PrintStream out) {
+        final Object[] values = new Object[PERCENTILES.length + 3];
+        values[0] = name;
+        values[1] = String.valueOf(percentiles.count);
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            values[i + 2] = String.format("%.1f", percentiles.values[i]);
+        }
+        values[values.length - 1] = String.format("%.1f", percentiles.max);
+
+        out.printf(LINE_FORMAT, values);
+    }
+
+    /**
+     * Formats the percentiles of the given histogram in one line, e.g. "p50 1.2, p90 2.0, p99 3.5, p99.9 4.1, max 4.1".
+     *
+     * @param histogram latencies in microseconds
+     * @return percentiles in milliseconds
+     */
+    static String formatPercentiles(final Histogram histogram) {
+        final StringBuilder result = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            result.append(getPercentileName(percentile)).append(' ')
+                    .append(String.format("%.1f", toMillis(histogram.getValueAtPercentile(percentile)))).append(", ");
+        }
+        result.append("max ").append(String.format("%.1f", toMillis(histogram.getMaxValue())));
+
+        return result.toString();
+    }
+
+    /**
+     * Writes the percentiles of the run, of each group and of each test case as JSON to the given file. The groups
+     * are written in the order they were added.
+     *
+     * @param file the report is written to this file
+     * @throws IOException if the file can not be written
+     */
+    public void writeReport(final Path file) throws IOException {
+        try {
+            final JSONObject report = new JSONObject();
+            report.put("run", toJson(new Percentiles(run)));
+
+            final JSONArray groupReports = new JSONArray();
+            for (GroupLatencies group : getGroupList()) {
+                final JSONObject groupReport = toJson(group.getPercentiles());
+                groupReport.put("name", group.name);
+
+                final JSONArray testReports = new JSONArray();
+                for (TestLatencies testCase : group.getTests()) {
+                    final JSONObject testReport = toJson(testCase.percentiles);
+                    testReport.put("name", testCase.name);
+                    if (testCase.corrected != null) {
+                        testReport.put("corrected", toJson(testCase.corrected));
+                    }
+                    testReports.put(testReport);
+                }
+                groupReport.put("tests", testReports);
+                groupReports.put(groupReport);
+            }
+            report.put("groups", groupReports);
+
+            Files.write(file, report.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Could not create latency report.", e);
+        }
+    }
+
+    private JSONObject toJson(final Percentiles percentiles) throws JSONException {
+        final JSONObject result = new JSONObject();
+
+        result.put("count", percentiles.count);
+        if (percentiles.count > 0) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                result.put(getPercentileName(PERCENTILES[i]), percentiles.values[i]);
+            }
+            result.put("max", percentiles.max);
+        }
+
+        return result;
+    }
+
+    private static String getPercentileName(final double percentile) {
+        return "p" + String.valueOf(percentile).replaceAll("\\.0$", "");
+    }
+
+    private static double toMillis(final long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Latencies of a group. While the group runs they are recorded in a histogram, afterwards only the percentiles
+     * are kept.
+     */
+    private class GroupLatencies {
+
+        private final String name;
+
+        /**
+         * The group while it runs, null when it has been finished.
+         */
+        private Group group;
+
+        /**
+         * Latencies while the group runs, null when it has been finished.
+         */
+        private Histogram histogram = newHistogram();
+
+        private Percentiles percentiles;
+
+        private List<TestLatencies> tests;
+
+        private GroupLatencies(final Group group) {
+            this.name = group.getName();
+            this.group = group;
+        }
+
+        private void finish(final List<TestLatencies> testLatencies) {
+            percentiles = new Percentiles(histogram);
+            tests = testLatencies;
+            histogram = null;
+            group = null;
+        }
+
+        private synchronized Percentiles getPercentiles() {
+            return (percentiles != null) ? percentiles : new Percentiles(histogram);
+        }
+
+        private synchronized List<TestLatencies> getTests() {
+            return (tests != null) ? tests : getTestLatencies(group, false);
+        }
+    }
+
+    /**
+     * Percentiles of a finished test case.
+     */
+    private static class TestLatencies {
+
+        private final String name;
+
+        private final Percentiles percentiles;
+
+        /**
+         * Latencies from the intended start of each request, null if the test case was no load test.
+         */
+        private final Percentiles corrected;
+
+        private TestLatencies(final String name, final Percentiles percentiles, final Percentiles corrected) {
+            this.name = name;
+            this.percentiles = percentiles;
+            this.corrected = corrected;
+        }
+    }
+
+    /**
+     * Number of recorded values and the reported percentiles in milliseconds.
+     */
+    private static class Percentiles {
+
+        private final long count;
+
+        private final double[] values = new double[PERCENTILES.length];
+
+        private final double max;
+
+        private Percentiles(final Histogram histogram) {
+            count = (histogram != null) ? histogram.getTotalCount() : 0;
+            if (count > 0) {
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    values[i] = toMillis(histogram.getValueAtPercentile(PERCENTILES[i]));
+                }
+            }
+            max = (count > 0) ? toMillis(histogram.getMaxValue()) : 0;
+        }
+    }
+}
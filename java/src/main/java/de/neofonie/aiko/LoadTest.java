@@ -0,0 +1,387 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.sun.jersey.api.client.ClientResponse;
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.Load;
+import de.neofonie.aiko.yaml.ResponseDefinition;
+import de.neofonie.aiko.yaml.TestCase;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Replays the request of a test case with the rate of its load definition. Requests are started when they are due,
+ * independent of how fast earlier responses arrive. If the maximum number of requests is in flight, due requests wait
+ * until another request has been completed. No thread waits for a response.
+ * <p>
+ * Latencies are recorded twice: from sending the request and from the point in time the request was due. Only the
+ * latter contains the time requests had to wait while the server stalled, the former hides it.
+ */
+public class LoadTest {
+
+    /**
+     * Number of significant decimal digits of the recorded latencies.
+     */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * The context provides the client and the scheduler.
+     */
+    private final Context context;
+
+    /**
+     * The group of the test case, used for the latency statistics.
+     */
+    private final Group group;
+
+    /**
+     * The requests are sent to this domain.
+     */
+    private final String domain;
+
+    /**
+     * The request of this test case is replayed.
+     */
+    private final TestCase testCase;
+
+    /**
+     * Rate, duration and concurrency of the load test.
+     */
+    private final Load load;
+
+    /**
+     * Latencies of all responses from sending the request in microseconds.
+     */
+    private final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    /**
+     * Latencies of all responses from the point in time the request was due in microseconds. Unlike the latencies
+     * from sending, they include the time a request had to wait, e.g. while the server stalled.
+     */
+    private final Histogram correctedLatencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    /**
+     * Number of failed requests per reason, e.g. "status 500" or "ConnectException".
+     */
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /**
+     * Number of completed requests, successful or not.
+     */
+    private final LongAdder completedRequests = new LongAdder();
+
+    /**
+     * Points in time of due requests, that wait for a free slot. Guarded by this.
+     */
+    private final Queue<Long> dueRequests = new ArrayDeque<>();
+
+    /**
+     * Completed when the last request has been completed.
+     */
+    private final CompletableFuture<Void> finished = new CompletableFuture<>();
+
+    private Supplier<HttpUriRequest> request;
+    private ScheduledFuture<?> ticker;
+    private long totalRequests;
+    private long intervalNanos;
+    private long startNanos;
+    private long endNanos;
+
+    /**
+     * Number of requests that were due so far. Guarded by this.
+     */
+    private long scheduledRequests;
+
+    /**
+     * Number of requests that have been sent. Guarded by this.
+     */
+    private long sentRequests;
+
+    /**
+     * Number of requests in flight. Guarded by this.
+     */
+    private int inFlight;
+
+    /**
+     * Set when the run was cancelled after a failure elsewhere. Guarded by this.
+     */
+    private boolean cancelled;
+
+    /**
+     * Creates a new instance with the given arguments.
+     *
+     * @param context The context provides the client and the scheduler.
+     * @param group The group is needed for the domain.
+     * @param testCase The request of this test case is replayed, it needs a load definition.
+     */
+    public LoadTest(final Context context, final Group group, final TestCase testCase) {
+        this.context = context;
+        this.group = group;
+        this.domain = group.getDomain().replaceAll("/$", "");
+        this.testCase = testCase;
+        this.load = testCase.getLoad();
+    }
+
+    /**
+     * Runs the load test and waits until it is finished. The responses are checked on the calling thread.
+     *
+     * @return true - error rate within the maximum | false - too many errors
+     * @throws IOException if the request can not be created
+     */
+    public boolean run() throws IOException {
+        final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        final CompletableFuture<Boolean> result = runAsync(tasks::add);
+
+        try {
+            while (!result.isDone()) {
+                final Runnable task = tasks.poll(100, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+            System.out.println("\t[ERROR] Load test interrupted.");
+            return false;
+        }
+
+        return result.join();
+    }
+
+    /**
+     * Starts the load test and returns immediately.
+     *
+     * @param executor the responses are checked and the result is printed on this executor
+     * @return future of the result: true - error rate within the maximum | false - too many errors
+     * @throws IOException if the request can not be created
+     */
+    public synchronized CompletableFuture<Boolean> runAsync(final Executor executor) throws IOException {
+        request = testCase.getRequest().prepareRequest(domain, context);
+        totalRequests = (long) load.getRate() * load.getDuration();
+        intervalNanos = TimeUnit.SECONDS.toNanos(1) / load.getRate();
+
+        System.out.println("\t\tLoad: " + load.getRate() + " requests/s for " + load.getDuration() + " s, at most "
+                + load.getConcurrency() + " in flight");
+
+        startNanos = System.nanoTime();
+        ticker = context.getScheduler().scheduleAtFixedRate(() -> scheduleRequest(executor), 0, intervalNanos, TimeUnit.NANOSECONDS);
+        final Runnable removeCancellation = context.getCancellation().onCancel(() -> cancel(executor));
+        finished.whenComplete((ignored, error) -> removeCancellation.run());
+
+        return finished.thenApplyAsync(ignored -> printResult(), executor);
+    }
+
+    private synchronized void scheduleRequest(final Executor executor) {
+        if (scheduledRequests < totalRequests) {
+            dueRequests.add(startNanos + scheduledRequests * intervalNanos);
+            scheduledRequests++;
+            sendDueRequests(executor);
+        }
+        if (scheduledRequests >= totalRequests) {
+            ticker.cancel(false);
+        }
+    }
+
+    private synchronized void stop() {
+        ticker.cancel(false);
+        totalRequests = scheduledRequests;
+        dueRequests.clear();
+    }
+
+    /**
+     * Stops sending requests, the requests in flight are aborted by the cancellation as well.
+     */
+    private synchronized void cancel(final Executor executor) {
+        cancelled = true;
+        stop();
+        sendDueRequests(executor);
+    }
+
+    private synchronized void requestCompleted(final Executor executor) {
+        inFlight--;
+        completedRequests.increment();
+        sendDueRequests(executor);
+    }
+
+    /**
+     * Sends due requests as long as the maximum number of requests in flight is not reached.
+     */
+    private void sendDueRequests(final Executor executor) {
+        while (inFlight < load.getConcurrency() && !dueRequests.isEmpty()) {
+            final long intendedStart = dueRequests.poll();
+            inFlight++;
+            send(intendedStart, sentRequests++ % load.getValidateEvery() == 0, executor);
+        }
+
+        if (inFlight == 0 && scheduledRequests >= totalRequests && !finished.isDone()) {
+            endNanos = System.nanoTime();
+            finished.complete(null);
+        }
+    }
+
+    private void send(final long intendedStart, final boolean validate, final Executor executor) {
+        final RequestTiming timing = new RequestTiming();
+
+        try {
+            testCase.getRequest().performRequestAsync(request.get(), context, timing).whenCompleteAsync((response, error) -> {
+                try {
+                    if (error != null) {
+                        addError(error);
+                    } else {
+                        checkResponse(response, timing, intendedStart, validate);
+                    }
+                } finally {
+                    requestCompleted(executor);
+                }
+            }, executor);
+        } catch (IOException e) {
+            addError(e);
+            inFlight--;
+            completedRequests.increment();
+        }
+    }
+
+    private void checkResponse(final ClientResponse response, final RequestTiming timing, final long intendedStart,
+                               final boolean validate) {
+        final ResponseDefinition responseDefinition = testCase.getResponse();
+        final CountingInputStream entityStream = new CountingInputStream(response.getEntityInputStream());
+        response.setEntityInputStream(entityStream);
+
+        try {
+            latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(timing.getLatency()));
+            correctedLatencies.recordValue(TimeUnit.NANOSECONDS.toMicros(timing.getLatencySince(intendedStart)));
+            context.getLatencies().record(group, testCase, timing.getLatency());
+            context.getLatencies().recordCorrected(testCase, timing.getLatencySince(intendedStart));
+
+            if (response.getStatus() != responseDefinition.getStatus()) {
+                addError("status " + response.getStatus());
+            } else if (validate && responseDefinition.doesNotMatchResponse(response, context)) {
+                addError("response did not match");
+            }
+            IOUtils.skip(entityStream, Long.MAX_VALUE);
+        } catch (IOException e) {
+            addError(e);
+        } finally {
+            context.getStatistics().addBytesReceived(entityStream.getByteCount());
+            response.close();
+        }
+    }
+
+    private void addError(final Throwable error) {
+        final Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        addError(cause.getClass().getSimpleName());
+    }
+
+    private void addError(final String reason) {
+        errors.computeIfAbsent(reason, key -> new LongAdder()).increment();
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    public Histogram getCorrectedLatencies() {
+        return correctedLatencies;
+    }
+
+    public long getCompletedRequests() {
+        return completedRequests.sum();
+    }
+
+    /**
+     * @return number of failed requests per reason
+     */
+    public Map<String, Long> getErrors() {
+        final Map<String, Long> result = new TreeMap<>();
+        errors.forEach((reason, count) -> result.put(reason, count.sum()));
+        return result;
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return completed requests per second
+     */
+    public double getThroughput() {
+        final double seconds = (endNanos - startNanos) / 1e9;
+        return (seconds > 0) ? getCompletedRequests() / seconds : 0;
+    }
+
+    /**
+     * @return percentage of failed requests
+     */
+    public double getErrorRate() {
+        final long completed = getCompletedRequests();
+        return (completed > 0) ? getErrorCount() * 100.0 / completed : 0;
+    }
+
+    private synchronized boolean printResult() {
+        System.out.println(String.format("\t\t%d requests in %.1f s - %.1f requests/s (target: %d requests/s)",
+                getCompletedRequests(), (endNanos - startNanos) / 1e9, getThroughput(), load.getRate()));
+        System.out.println(String.format("\t\tErrors: %d (%.2f %%)", getErrorCount(), getErrorRate()));
+        getErrors().forEach((reason, count) -> System.out.println("\t\t  " + reason + ": " + count));
+        if (latencies.getTotalCount() > 0) {
+            System.out.println("\t\tLatency (ms) from sending:        " + LatencyStatistics.formatPercentiles(latencies));
+            System.out.println("\t\tLatency (ms) from intended start: " + LatencyStatistics.formatPercentiles(correctedLatencies));
+        }
+
+        if (cancelled) {
+            System.out.println("\t[ERROR] Load test cancelled after a failure.");
+            return false;
+        }
+
+        if (getErrorRate() > load.getMaxErrorRate()) {
+            System.out.println(String.format("\t[ERROR] Error rate of %.2f %% exceeds the maximum of %s %%.",
+                    getErrorRate(), load.getMaxErrorRate()));
+            return false;
+        }
+
+        System.out.println("\tSuccess");
+        return true;
+    }
+}
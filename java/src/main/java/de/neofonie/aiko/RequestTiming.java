@@ -0,0 +1,98 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Points in time of one request: when it was sent, when the status line and headers of the response were received
+ * (first byte) and when the response was received completely. Each point is taken once, later calls are ignored.
+ */
+public class RequestTiming {
+
+    private volatile long start;
+    private volatile long firstByte;
+    private volatile long end;
+
+    /**
+     * Marks the request as sent.
+     */
+    public void start() {
+        if (start == 0) {
+            start = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the status line and headers of the response as received.
+     */
+    public void firstByteReceived() {
+        if (firstByte == 0) {
+            firstByte = System.nanoTime();
+        }
+    }
+
+    /**
+     * Marks the response as received completely.
+     */
+    public void completed() {
+        firstByteReceived();
+        if (end == 0) {
+            end = System.nanoTime();
+        }
+    }
+
+    /**
+     * @return time until the response was received completely in nanoseconds
+     */
+    public long getLatency() {
+        return end - start;
+    }
+
+    /**
+     * Returns the time from the given point in time until the response was received completely. If the request was
+     * sent later than intended, e.g. because the server stalled, the delay is included.
+     *
+     * @param intendedStart point in time the request should have been sent, see {@link System#nanoTime()}
+     * @return time until the response was received completely in nanoseconds
+     */
+    public long getLatencySince(final long intendedStart) {
+        return end - intendedStart;
+    }
+
+    /**
+     * @return time until the status line and headers of the response were received in nanoseconds
+     */
+    public long getTimeToFirstByte() {
+        return firstByte - start;
+    }
+
+    public long getLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getLatency());
+    }
+
+    public long getTimeToFirstByteMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getTimeToFirstByte());
+    }
+}
@@ -23,13 +23,27 @@ SOFTWARE.
  */
 package de.neofonie.aiko;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * This retry strategy ensures that all retries are executed correctly.
+ * This retry strategy ensures that all retries are executed correctly. The delay before each retry is computed by a
+ * backoff policy or taken from the Retry-After header of the failed response and limited by an optional maximum delay.
  */
 public class RetryStrategy {
 
+    /**
+     * Maximum delay in milliseconds, that a Retry-After header can request, if no maximum delay is configured.
+     */
+    static final long MAX_RETRY_AFTER = 60 * 1000;
+
     /**
      * Retry count.
      */
@@ -40,11 +54,46 @@ public class RetryStrategy {
      */
     private final int retryDelay;
 
+    /**
+     * Computes the delay before each retry.
+     */
+    private final Backoff backoff;
+
+    /**
+     * Maximum delay before a retry in milliseconds, 0 for no maximum.
+     */
+    private final int maxDelay;
+
+    /**
+     * Status codes, that are retried. If empty, every failed test is retried.
+     */
+    private final Set<Integer> retryableStatuses;
+
+    /**
+     * Status code of the last failed response, 0 if there was none.
+     */
+    private int failedStatus;
+
     /**
      * Current retry count.
      */
     private int currentRetryCount;
 
+    /**
+     * Delay before the next retry, computed once per retry.
+     */
+    private long nextDelay = -1;
+
+    /**
+     * Delay before the previous retry.
+     */
+    private long previousDelay;
+
+    /**
+     * Sum of the delays of all retries so far.
+     */
+    private long totalDelay;
+
     /**
      * Creates a strategy with no retry.
      */
@@ -53,24 +102,104 @@ public class RetryStrategy {
     }
 
     /**
-     * Creates an instance with the given arguments.
+     * Creates an instance with a fixed delay.
      *
      * @param retryCount Retry count.
      * @param retryDelay Retry delay in milliseconds.
      */
     public RetryStrategy(final int  retryCount, final int  retryDelay) {
+        this(retryCount, retryDelay, Backoff.FIXED, 0, null);
+    }
+
+    /**
+     * Creates an instance with the given arguments.
+     *
+     * @param retryCount Retry count.
+     * @param retryDelay Retry delay in milliseconds, the backoff computes the delay of each retry from it.
+     * @param backoff Computes the delay before each retry.
+     * @param maxDelay Maximum delay before a retry in milliseconds, 0 for no maximum.
+     * @param retryableStatuses Status codes, that are retried. If null or empty, every failed test is retried.
+     */
+    public RetryStrategy(final int retryCount, final int retryDelay, final Backoff backoff, final int maxDelay,
+                         final Collection<Integer> retryableStatuses) {
         Validate.isTrue(retryCount > -1, "Retry count has to be a positive number - given value %d.", retryCount);
         Validate.isTrue(retryDelay > -1, "Retry delay has to be a positive number - given value %d.", retryDelay);
+        Validate.isTrue(maxDelay > -1, "Max delay has to be a positive number - given value %d.", maxDelay);
+        Validate.notNull(backoff, "Backoff must not be null.");
         this.retryCount = retryCount;
         this.retryDelay = retryDelay;
+        this.backoff = backoff;
+        this.maxDelay = maxDelay;
+        this.retryableStatuses = (retryableStatuses == null) ? Collections.emptySet() : new HashSet<>(retryableStatuses);
         this.currentRetryCount = 0;
     }
 
-    public int getRetryDelay() {
-        return retryDelay;
+    /**
+     * Returns the delay before the next retry. Repeated calls return the same delay until the retry count is increased.
+     *
+     * @return delay in milliseconds
+     */
+    public long getRetryDelay() {
+        if (nextDelay < 0) {
+            nextDelay = limitDelay(backoff.getDelay(retryDelay, currentRetryCount + 1, previousDelay));
+        }
+        return nextDelay;
+    }
+
+    private long limitDelay(final long delay) {
+        return (maxDelay > 0) ? Math.min(delay, maxDelay) : delay;
+    }
+
+    /**
+     * Remembers the status of a failed response. If the response has a Retry-After header with a number of seconds or
+     * an HTTP date, it replaces the delay before the next retry.
+     *
+     * @param status status code of the failed response
+     * @param retryAfter value of the Retry-After header or null
+     */
+    public void responseFailed(final int status, final String retryAfter) {
+        failedStatus = status;
+
+        if (StringUtils.isNotBlank(retryAfter)) {
+            final long retryAfterMillis = parseRetryAfter(retryAfter.trim());
+            if (retryAfterMillis > -1) {
+                // the server must not stall a test without a configured maximum
+                nextDelay = (maxDelay > 0) ? limitDelay(retryAfterMillis) : Math.min(retryAfterMillis, MAX_RETRY_AFTER);
+            }
+        }
+    }
+
+    private static long parseRetryAfter(final String retryAfter) {
+        if (StringUtils.isNumeric(retryAfter)) {
+            try {
+                final long seconds = Long.parseLong(retryAfter);
+                return (seconds > Long.MAX_VALUE / 1000) ? Long.MAX_VALUE : seconds * 1000;
+            } catch (NumberFormatException e) {
+                // more digits than a long can hold
+                return Long.MAX_VALUE;
+            }
+        }
+
+        final Date date = DateUtils.parseDate(retryAfter);
+        if (date != null) {
+            return Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return true if the last failed response has a status, that is retried
+     */
+    public boolean isRetryable() {
+        return retryableStatuses.isEmpty() || retryableStatuses.contains(failedStatus);
     }
 
     public void increaseCurrentRetryCount() {
+        previousDelay = getRetryDelay();
+        totalDelay += previousDelay;
+        nextDelay = -1;
+        failedStatus = 0;
         currentRetryCount++;
     }
 
@@ -80,7 +209,7 @@ public class RetryStrategy {
 
     public void printRetryNumber() {
         if (currentRetryCount > 0) {
-            System.out.println("\tStart with retry " + currentRetryCount + "/" + retryCount + " after " + (retryDelay * currentRetryCount) + " ms.");
+            System.out.println("\tStart with retry " + currentRetryCount + "/" + retryCount + " after " + totalDelay + " ms.");
         }
     }
 }
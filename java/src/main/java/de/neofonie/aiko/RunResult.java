@@ -0,0 +1,315 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.HdrHistogram.Histogram;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Result of a run, that can be written to a file and read again. The results of the shards of a run are merged into
+ * one result with one exit code, see {@link Shard}.
+ */
+public final class RunResult {
+
+    /**
+     * Shard of the run, null if all groups were run.
+     */
+    private final Shard shard;
+
+    /**
+     * Number of shards, that were merged into this result. 1 if it is the result of one run.
+     */
+    private final int shards;
+
+    private final int exitCode;
+
+    private final long tests;
+
+    private final long passedTests;
+
+    private final long failedTests;
+
+    private final long cancelledTests;
+
+    private final long skippedTests;
+
+    private final long retries;
+
+    private final long requests;
+
+    private final long bytesSent;
+
+    private final long bytesReceived;
+
+    private final List<String> failedGroups;
+
+    /**
+     * Latencies of all requests in microseconds.
+     */
+    private final Histogram latencies;
+
+    private RunResult(final Shard shard, final int shards, final int exitCode, final long tests, final long passedTests,
+                      final long failedTests, final long cancelledTests, final long skippedTests, final long retries,
+                      final long requests, final long bytesSent, final long bytesReceived, final List<String> failedGroups,
+                      final Histogram latencies) {
+        this.shard = shard;
+        this.shards = shards;
+        this.exitCode = exitCode;
+        this.tests = tests;
+        this.passedTests = passedTests;
+        this.failedTests = failedTests;
+        this.cancelledTests = cancelledTests;
+        this.skippedTests = skippedTests;
+        this.retries = retries;
+        this.requests = requests;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.failedGroups = failedGroups;
+        this.latencies = latencies;
+    }
+
+    /**
+     * Returns the result of a finished run.
+     *
+     * @param context context of the run
+     * @param shard shard of the run or null
+     * @param exitCode exit code of the run
+     * @return result of the run
+     */
+    public static RunResult of(final Context context, final Shard shard, final int exitCode) {
+        final RunStatistics statistics = context.getStatistics();
+        return new RunResult(shard, 1, exitCode, statistics.getTests(), statistics.getPassedTests(),
+                statistics.getFailedTests(), statistics.getCancelledTests(), statistics.getSkippedTests(),
+                statistics.getRetries(), statistics.getRequests(), statistics.getBytesSent(),
+                statistics.getBytesReceived(), statistics.getFailedGroups(), context.getLatencies().getRun().copy());
+    }
+
+    /**
+     * Merges the results of all shards of a run. Every shard has to be given exactly once.
+     *
+     * @param results results of the shards
+     * @return merged result, its exit code is the highest exit code of the shards
+     * @throws IllegalArgumentException if a result is not the result of a shard, a shard is missing or given twice
+     */
+    public static RunResult merge(final List<RunResult> results) {
+        if (results.isEmpty()) {
+            throw new IllegalArgumentException("No results to merge.");
+        }
+
+        final TreeMap<Integer, RunResult> byIndex = new TreeMap<>();
+        final int count = getShard(results.get(0)).getCount();
+        for (RunResult result : results) {
+            final Shard shard = getShard(result);
+            if (shard.getCount() != count) {
+                throw new IllegalArgumentException("Shard " + shard + " does not belong to a run with " + count + " shards.");
+            }
+            if (byIndex.put(shard.getIndex(), result) != null) {
+                throw new IllegalArgumentException("Shard " + shard + " is given twice.");
+            }
+        }
+
+        final List<Integer> missing = new ArrayList<>();
+        for (int index = 1; index <= count; index++) {
+            if (!byIndex.containsKey(index)) {
+                missing.add(index);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing results of shards " + missing + " of " + count + ".");
+        }
+
+        int exitCode = 0;
+        long tests = 0, passedTests = 0, failedTests = 0, cancelledTests = 0, skippedTests = 0, retries = 0, requests = 0,
+                bytesSent = 0, bytesReceived = 0;
+        final List<String> failedGroups = new ArrayList<>();
+        final Histogram latencies = new Histogram(3);
+        for (RunResult result : byIndex.values()) {
+            exitCode = Math.max(exitCode, result.exitCode);
+            tests += result.tests;
+            passedTests += result.passedTests;
+            failedTests += result.failedTests;
+            cancelledTests += result.cancelledTests;
+            skippedTests += result.skippedTests;
+            retries += result.retries;
+            requests += result.requests;
+            bytesSent += result.bytesSent;
+            bytesReceived += result.bytesReceived;
+            failedGroups.addAll(result.failedGroups);
+            latencies.add(result.latencies);
+        }
+
+        return new RunResult(null, count, exitCode, tests, passedTests, failedTests, cancelledTests, skippedTests, retries,
+                requests, bytesSent, bytesReceived, failedGroups, latencies);
+    }
+
+    private static Shard getShard(final RunResult result) {
+        if (result.shard == null) {
+            throw new IllegalArgumentException("Only results of shards can be merged - run with --shard i/n.");
+        }
+        return result.shard;
+    }
+
+    /**
+     * Writes the result as JSON to the given file.
+     *
+     * @param file the result is written to this file
+     * @throws IOException if the file can not be written
+     */
+    public void write(final Path file) throws IOException {
+        try {
+            final JSONObject result = new JSONObject();
+            if (shard != null) {
+                result.put("shard", shard.toString());
+            }
+            result.put("shards", shards);
+            result.put("exitCode", exitCode);
+            result.put("tests", tests);
+            result.put("passedTests", passedTests);
+            result.put("failedTests", failedTests);
+            result.put("cancelledTests", cancelledTests);
+            result.put("skippedTests", skippedTests);
+            result.put("retries", retries);
+            result.put("requests", requests);
+            result.put("bytesSent", bytesSent);
+            result.put("bytesReceived", bytesReceived);
+            result.put("failedGroups", new JSONArray(failedGroups));
+            result.put("latencies", encode(latencies));
+
+            Files.write(file, result.toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Could not create result.", e);
+        }
+    }
+
+    /**
+     * Reads a result, that was written with {@link #write(Path)}.
+     *
+     * @param file file of the result
+     * @return read result
+     * @throws IOException if the file can not be read or is no result
+     */
+    public static RunResult read(final Path file) throws IOException {
+        try {
+            final JSONObject result = new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            final JSONArray groups = result.getJSONArray("failedGroups");
+            final List<String> failedGroups = new ArrayList<>();
+            for (int i = 0; i < groups.length(); i++) {
+                failedGroups.add(groups.getString(i));
+            }
+
+            return new RunResult(result.has("shard") ? Shard.parse(result.getString("shard")) : null,
+                    result.getInt("shards"), result.getInt("exitCode"), result.getLong("tests"),
+                    result.getLong("passedTests"), result.getLong("failedTests"), result.getLong("cancelledTests"),
+                    result.getLong("skippedTests"), result.getLong("retries"), result.getLong("requests"),
+                    result.getLong("bytesSent"), result.getLong("bytesReceived"), failedGroups,
+                    decode(result.getString("latencies")));
+        } catch (JSONException | IllegalArgumentException | DataFormatException e) {
+            throw new IOException("Invalid result " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String encode(final Histogram histogram) {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    private static Histogram decode(final String histogram) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(histogram)), 0);
+    }
+
+    /**
+     * Prints the statistics, the failed groups and the latency percentiles.
+     *
+     * @param out the result is printed to this stream
+     */
+    public void print(final PrintStream out) {
+        out.println("Tests: " + tests +
+                ", passed: " + passedTests +
+                ", failed: " + failedTests +
+                ", cancelled: " + cancelledTests +
+                ", skipped: " + skippedTests +
+                ", retries: " + retries +
+                ", requests: " + requests +
+                ", bytes sent: " + bytesSent +
+                ", bytes received: " + bytesReceived);
+        if (latencies.getTotalCount() > 0) {
+            out.println("Latency (ms) of all requests: " + LatencyStatistics.formatPercentiles(latencies));
+        }
+        for (String group : failedGroups) {
+            out.println("[ERROR] Group '" + group + "' failed.");
+        }
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    public long getTests() {
+        return tests;
+    }
+
+    public long getFailedTests() {
+        return failedTests;
+    }
+
+    public long getCancelledTests() {
+        return cancelledTests;
+    }
+
+    public long getSkippedTests() {
+        return skippedTests;
+    }
+
+    public List<String> getFailedGroups() {
+        return failedGroups;
+    }
+
+    public Histogram getLatencies() {
+        return latencies;
+    }
+}
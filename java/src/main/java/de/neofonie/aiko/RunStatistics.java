@@ -0,0 +1,204 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one test run. All counters can be updated from concurrently running tests and read while the run is
+ * in progress.
+ */
+public class RunStatistics {
+
+    /**
+     * Number of started tests, also used to number the tests in the output.
+     */
+    private final AtomicLong tests = new AtomicLong();
+
+    /**
+     * Number of successful tests.
+     */
+    private final LongAdder passedTests = new LongAdder();
+
+    /**
+     * Number of failed tests. A test that failed after all retries is counted once.
+     */
+    private final LongAdder failedTests = new LongAdder();
+
+    /**
+     * Number of tests, that were aborted because the run was cancelled.
+     */
+    private final LongAdder cancelledTests = new LongAdder();
+
+    /**
+     * Number of tests, that were not run because a test they depend on did not pass.
+     */
+    private final LongAdder skippedTests = new LongAdder();
+
+    /**
+     * Number of retries of all tests.
+     */
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Number of sent requests.
+     */
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Number of bytes sent in request bodies.
+     */
+    private final LongAdder bytesSent = new LongAdder();
+
+    /**
+     * Number of bytes read from response bodies.
+     */
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * Names of the failed groups in the order they failed.
+     */
+    private final Queue<String> failedGroups = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Counts a started test and returns its number within the run.
+     *
+     * @return number of the test, starting with 1
+     */
+    public long startTest() {
+        return tests.incrementAndGet();
+    }
+
+    /**
+     * Counts a finished test.
+     *
+     * @param passed true - successful | false - failed
+     */
+    public void finishTest(final boolean passed) {
+        if (passed) {
+            passedTests.increment();
+        } else {
+            failedTests.increment();
+        }
+    }
+
+    /**
+     * Counts a test, that was aborted because the run was cancelled. It is neither counted as passed nor as failed.
+     */
+    public void cancelTest() {
+        cancelledTests.increment();
+    }
+
+    /**
+     * Counts a test, that was not run because a test it depends on did not pass. It is not counted as started.
+     */
+    public void skipTest() {
+        skippedTests.increment();
+    }
+
+    public void addRetry() {
+        retries.increment();
+    }
+
+    /**
+     * Counts a sent request.
+     *
+     * @param bodySize number of bytes in the request body
+     */
+    public void addRequest(final long bodySize) {
+        requests.increment();
+        bytesSent.add(bodySize);
+    }
+
+    public void addBytesReceived(final long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    /**
+     * Counts a failed group.
+     *
+     * @param name name of the group
+     */
+    public void addFailedGroup(final String name) {
+        failedGroups.add(name);
+    }
+
+    public long getTests() {
+        return tests.get();
+    }
+
+    public long getPassedTests() {
+        return passedTests.sum();
+    }
+
+    public long getFailedTests() {
+        return failedTests.sum();
+    }
+
+    public long getCancelledTests() {
+        return cancelledTests.sum();
+    }
+
+    public long getSkippedTests() {
+        return skippedTests.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    public List<String> getFailedGroups() {
+        return new ArrayList<>(failedGroups);
+    }
+
+    @Override
+    public String toString() {
+        return "Tests: " + getTests() +
+                ", passed: " + getPassedTests() +
+                ", failed: " + getFailedTests() +
+                ", cancelled: " + getCancelledTests() +
+                ", skipped: " + getSkippedTests() +
+                ", retries: " + getRetries() +
+                ", requests: " + getRequests() +
+                ", bytes sent: " + getBytesSent() +
+                ", bytes received: " + getBytesReceived();
+    }
+}
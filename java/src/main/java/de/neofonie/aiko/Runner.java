@@ -25,6 +25,7 @@ package de.neofonie.aiko;
 
 import de.neofonie.aiko.yaml.Group;
 import de.neofonie.aiko.yaml.TestCase;
+import de.neofonie.aiko.yaml.TestConfiguration;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -32,8 +33,26 @@ import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This runner executes all test from the test configuration.
@@ -42,24 +61,15 @@ public class Runner {
 
     private final static Options AIKO_OPTIONS = getOptions();
     private final static String HEADER = "Neofonie Aiko - Test your REST interface";
-
-    /**
-     * Total number of tests run.
-     */
-    public static int TOTAL_TEST_COUNTER = 0;
-
-    /**
-     * Number of failed tests.
-     */
-    public static int FAILED_TEST_COUNTER = 0;
+    private final static String VIRTUAL_THREAD_SUPPORT = "de.neofonie.aiko.VirtualThreadSupport";
 
     /**
      * Starts all tests and returns an exit code. If all tests were successful 0 is returned.
-     * If the arguments where not parseable it returns 1. If one or more tests failed or an exception occurred it
-     * returns 2.
+     * If the arguments or the configuration where not parseable it returns 1. If one or more tests failed or an
+     * exception occurred it returns 2.
      *
      * @param args command line arguments that specify the configuration file
-     * @return 0 - all tests successful | 1 - args not parseable | 2 - at least one test failed or exception
+     * @return 0 - all tests successful | 1 - args or configuration not parseable | 2 - at least one test failed or exception
      */
     public static int executeAikoTests(final String... args) {
         System.out.println(HEADER);
@@ -71,6 +81,9 @@ public class Runner {
             showHelp.printHelp("java -jar aiko.jar ", "Neofonie Aiko", AIKO_OPTIONS, "");
             System.out.println("Parse Error: " + e.getMessage());
             return 1;
+        } catch (YAMLException e) {
+            System.out.println("Configuration Error: " + e.getMessage());
+            return 1;
         } catch (IOException e) {
             e.printStackTrace();
             return 2;
@@ -79,79 +92,604 @@ public class Runner {
 
     /**
      * Parses the given arguments, starts all tests and returns an exit code. If all tests were successful 0 is returned
-     * otherwise 2.
+     * otherwise 2. If a streamed group is invalid or a streamed file can not be read, the groups before it are run
+     * and reported and 1 is returned.
      *
      * @param args command line arguments that specify the configuration file
-     * @return 0 - all tests successful | 2 - at least one test failed
+     * @return 0 - all tests successful | 1 - a streamed group is invalid | 2 - at least one test failed
      * @throws ParseException
      * @throws IOException
      */
     private static int startTests(final String... args) throws ParseException, IOException {
         final CommandLineParser parser = new DefaultParser();
         final CommandLine cmd = parser.parse(AIKO_OPTIONS, args);
-        final String configurationFile = cmd.getOptionValue("f");
-        final Context context = new Context(System.getProperty("user.dir"), configurationFile);
+        if (cmd.hasOption("merge")) {
+            return mergeResults(cmd);
+        }
+
+        final List<File> configurationFiles = getConfigurationFiles(cmd);
+        final Settings settings = getSettings(cmd);
         int exitCode = 0;
 
-        System.out.println(context);
-        System.out.println("Starting tests");
-        if (!Runner.runAllTests(context)) {
-            exitCode = 2;
+        try (Context context = new Context(System.getProperty("user.dir"), configurationFiles, settings)) {
+            System.out.println(context);
+            if (settings.getShard() != null) {
+                System.out.println("Shard " + settings.getShard());
+            }
+            System.out.println("Starting tests");
+            if (!Runner.runAllTests(context, settings)) {
+                exitCode = 2;
+            }
+            if (context.getConfigurationError() != null) {
+                System.out.println("Configuration Error: " + context.getConfigurationError().getMessage());
+                exitCode = 1;
+            }
+            if (settings.getLatencyReport() != null) {
+                context.getLatencies().writeReport(Paths.get(settings.getLatencyReport()));
+            }
+            if (settings.getResult() != null) {
+                RunResult.of(context, settings.getShard(), exitCode).write(Paths.get(settings.getResult()));
+            }
+            if (context.getHistory() != null) {
+                context.getHistory().write(Paths.get(settings.getHistory()));
+            }
         }
 
         return exitCode;
     }
 
+    /**
+     * Merges the results of the shards of a run, prints them and returns the highest exit code of the shards.
+     */
+    private static int mergeResults(final CommandLine cmd) throws ParseException, IOException {
+        final List<RunResult> results = new ArrayList<>();
+        for (String file : cmd.getOptionValues("merge")) {
+            results.add(RunResult.read(Paths.get(file)));
+        }
+
+        final RunResult result;
+        try {
+            result = RunResult.merge(results);
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+
+        System.out.println("Merged results of " + result.getShards() + " shards");
+        result.print(System.out);
+        if (cmd.hasOption("result")) {
+            result.write(Paths.get(cmd.getOptionValue("result")));
+        }
+        if (result.getFailedTests() > 0) {
+            printFailedTestCounter(result.getFailedTests());
+        }
+
+        return result.getExitCode();
+    }
+
     private static Options getOptions() {
         final Options options = new Options();
-        options.addOption(Option.builder("f").required().hasArg().desc("the YAML file to test").build());
+        options.addOption(Option.builder("f").hasArgs().argName("FILE|DIR|GLOB")
+                .desc("the YAML files to test, directories and globs like 'tests/**.yml' are expanded in sorted order").build());
+        options.addOption(Option.builder("p").longOpt("parallel").hasArg().argName("N")
+                .desc("number of groups that are run concurrently (default: 1, all groups with --virtual-threads)").build());
+        options.addOption(Option.builder().longOpt("async")
+                .desc("send requests with a non-blocking client, no thread waits for a response").build());
+        options.addOption(Option.builder().longOpt("virtual-threads")
+                .desc("run each group on its own virtual thread, needs Java 21").build());
+        options.addOption(Option.builder().longOpt("latency-report").hasArg().argName("FILE")
+                .desc("write the latency percentiles as JSON to this file").build());
+        options.addOption(Option.builder().longOpt("max-connections").hasArg().argName("N")
+                .desc("maximum number of open connections per domain (default: 20)").build());
+        options.addOption(Option.builder().longOpt("idle-timeout").hasArg().argName("SECONDS")
+                .desc("idle connections are closed after this time (default: 30)").build());
+        options.addOption(Option.builder().longOpt("fixture-cache").hasArg().argName("MB")
+                .desc("referenced files up to this total size are kept in memory, 0 to disable (default: 64)").build());
+        options.addOption(Option.builder().longOpt("stream")
+                .desc("parse the groups while the tests run instead of loading the whole YAML file first").build());
+        options.addOption(Option.builder().longOpt("shard").hasArg().argName("i/n")
+                .desc("run only the i-th of n parts of the groups, e.g. 1/4").build());
+        options.addOption(Option.builder().longOpt("result").hasArg().argName("FILE")
+                .desc("write the result of the run as JSON to this file").build());
+        options.addOption(Option.builder().longOpt("history").hasArg().argName("FILE")
+                .desc("start the longest groups of previous runs first and update their durations in this file").build());
+        options.addOption(Option.builder().longOpt("merge").hasArgs().argName("FILE")
+                .desc("merge the result files of all shards of a run instead of running tests").build());
+        options.addOption(Option.builder().longOpt("continue-on-failure")
+                .desc("run all groups after a failure instead of cancelling the run").build());
 
         return options;
     }
 
-    private static boolean runAllTests(final Context context) {
+    private static List<File> getConfigurationFiles(final CommandLine cmd) throws ParseException, IOException {
+        if (!cmd.hasOption("f")) {
+            throw new ParseException("Missing required option: f");
+        }
+
+        try {
+            return ConfigurationFiles.resolve(cmd.getOptionValues("f"));
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+    }
+
+    private static Settings getSettings(final CommandLine cmd) throws ParseException {
+        final Settings settings = new Settings();
+
+        try {
+            if (cmd.hasOption("p")) {
+                settings.setParallelism(Integer.parseInt(cmd.getOptionValue("p")));
+            }
+            settings.setAsync(cmd.hasOption("async"));
+            settings.setVirtualThreads(cmd.hasOption("virtual-threads"));
+            settings.setStreaming(cmd.hasOption("stream"));
+            settings.setContinueOnFailure(cmd.hasOption("continue-on-failure"));
+            settings.setLatencyReport(cmd.getOptionValue("latency-report"));
+            if (cmd.hasOption("shard")) {
+                settings.setShard(Shard.parse(cmd.getOptionValue("shard")));
+            }
+            settings.setResult(cmd.getOptionValue("result"));
+            settings.setHistory(cmd.getOptionValue("history"));
+            if (cmd.hasOption("max-connections")) {
+                settings.setMaxConnectionsPerDomain(Integer.parseInt(cmd.getOptionValue("max-connections")));
+            }
+            if (cmd.hasOption("idle-timeout")) {
+                settings.setIdleTimeout(Integer.parseInt(cmd.getOptionValue("idle-timeout")));
+            }
+            if (cmd.hasOption("fixture-cache")) {
+                settings.setFixtureCacheSize(Integer.parseInt(cmd.getOptionValue("fixture-cache")));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ParseException(e.getMessage());
+        }
+
+        if (settings.isVirtualThreads() && settings.isAsync()) {
+            throw new ParseException("Virtual threads can not be combined with async.");
+        }
+        if (settings.isVirtualThreads() && !isVirtualThreadSupportAvailable()) {
+            throw new ParseException("Virtual threads need a build with Java 21 or newer.");
+        }
+
+        return settings;
+    }
+
+    private static boolean runAllTests(final Context context, final Settings settings) {
+        final boolean result;
+
+        if (!context.isStreaming()) {
+            // groups, that are skipped after a failure, are still reported
+            context.getTestGroups().forEach(context.getLatencies()::addGroup);
+        }
+
+        final Iterator<Group> groups = getScheduledGroups(context, settings);
+        if (settings.isAsync()) {
+            result = runGroupsAsync(context, groups, settings.getParallelism());
+        } else if (settings.isVirtualThreads()) {
+            result = runGroupsInParallel(context, groups, newVirtualThreadExecutor(), settings.getParallelism());
+        } else if (settings.getParallelism() > 1) {
+            result = runGroupsInParallel(context, groups, Executors.newFixedThreadPool(settings.getParallelism()), settings.getParallelism());
+        } else {
+            result = runGroupsSequentially(context, groups);
+        }
+
+        final boolean skipped = context.getStatistics().getCancelledTests() > 0 || groups.hasNext();
+        if (context.getCancellation().isCancelled() && skipped) {
+            System.out.println("[ERROR] Run cancelled after the first failure, use --continue-on-failure to run all groups.");
+        }
+        System.out.println(context.getStatistics());
+        context.getLatencies().print(System.out);
+        if (context.getStatistics().getFailedTests() > 0) {
+            printFailedTestCounter(context.getStatistics().getFailedTests());
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the groups in the order they are started. When groups run concurrently and a history is kept, the
+     * longest groups of previous runs are started first, so they do not delay the end of the run. Otherwise, and for
+     * streamed groups, the order of the configuration is kept.
+     */
+    private static Iterator<Group> getScheduledGroups(final Context context, final Settings settings) {
+        final boolean concurrent = settings.isAsync() || settings.isVirtualThreads() || settings.getParallelism() > 1;
+        if (concurrent && context.getHistory() != null && !context.isStreaming()) {
+            return context.getHistory().schedule(context.getTestGroups()).iterator();
+        }
+        return context.getTestGroupIterator();
+    }
+
+    private static boolean runGroupsSequentially(final Context context, final Iterator<Group> groups) {
         boolean result = true;
 
-        for (int i = 0; i < context.getTestGroups().size() && result; i++) {
-            final Group group = context.getTestGroups().get(i);
-            System.out.print("Group: '" + group.getName() + "': \n");
+        while (!context.getCancellation().isCancelled() && groups.hasNext()) {
+            result &= runGroup(context, nextGroup(context, groups));
+        }
 
-            try {
-                result = runTestsInGroup(context, group);
-            } catch (IOException e) {
-                System.out.println("[ERROR] Test execution failed. Reason: " + e.getMessage());
-                e.printStackTrace();
-                result = false;
+        return result;
+    }
+
+    private static boolean isVirtualThreadSupportAvailable() {
+        try {
+            Class.forName(VIRTUAL_THREAD_SUPPORT);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Class.forName(VIRTUAL_THREAD_SUPPORT).getMethod("newExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads are not available.", e);
+        }
+    }
+
+    private static Group nextGroup(final Context context, final Iterator<Group> groups) {
+        final Group group = groups.next();
+        context.getLatencies().addGroup(group);
+        return group;
+    }
+
+    /**
+     * Runs the groups on the given workers, at most the given number of groups at the same time. The tests within a
+     * group are still run one after another. Like in the sequential run, groups that have not been started yet are
+     * skipped after the run was cancelled. A group is only taken from the configuration when it can be started.
+     */
+    private static boolean runGroupsInParallel(final Context context, final Iterator<Group> groups,
+                                               final ExecutorService workers, final int parallelism) {
+        final PrintStream originalOut = System.out;
+        final GroupConsole console = new GroupConsole(originalOut);
+        final Semaphore runningGroups = new Semaphore(parallelism);
+        final List<Future<Boolean>> results = new ArrayList<>();
+
+        System.setOut(console);
+        try {
+            while (groups.hasNext()) {
+                runningGroups.acquireUninterruptibly();
+                if (context.getCancellation().isCancelled()) {
+                    runningGroups.release();
+                    break;
+                }
+
+                final Group group = nextGroup(context, groups);
+                results.add(workers.submit(() -> {
+                    console.startCapture();
+                    try {
+                        return runGroup(context, group);
+                    } finally {
+                        console.stopCapture();
+                        runningGroups.release();
+                    }
+                }));
+            }
+
+            return awaitGroupResults(results);
+        } finally {
+            workers.shutdownNow();
+            System.setOut(originalOut);
+        }
+    }
+
+    /**
+     * Runs the groups with the non-blocking client. Up to the given number of groups are in flight at the same time,
+     * the tests within a group are run one after another. A small pool of workers prints and checks the responses,
+     * no thread is blocked while a request is in flight.
+     */
+    private static boolean runGroupsAsync(final Context context, final Iterator<Group> groups, final int parallelism) {
+        final PrintStream originalOut = System.out;
+        final GroupConsole console = new GroupConsole(originalOut);
+        final ExecutorService workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        final Semaphore runningGroups = new Semaphore(parallelism);
+        final List<Future<Boolean>> results = new ArrayList<>();
+
+        System.setOut(console);
+        try {
+            while (groups.hasNext()) {
+                runningGroups.acquireUninterruptibly();
+                if (context.getCancellation().isCancelled()) {
+                    runningGroups.release();
+                    break;
+                }
+
+                results.add(runGroupAsync(context, nextGroup(context, groups), console, workers).whenComplete((groupResult, error) -> {
+                    if (error != null) {
+                        context.failed();
+                    }
+                    runningGroups.release();
+                }));
             }
 
-            System.out.println("\n");
+            return awaitGroupResults(results);
+        } finally {
+            workers.shutdownNow();
+            System.setOut(originalOut);
+        }
+    }
+
+    private static CompletableFuture<Boolean> runGroupAsync(final Context context, final Group group,
+                                                            final GroupConsole console, final Executor workers) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final Executor executor = console.capturing(workers, buffer);
+        final long start = System.nanoTime();
+
+        return CompletableFuture.runAsync(() -> System.out.print("Group: '" + group.getName() + "': \n"), executor)
+                .thenCompose(ignored -> runTestsInGroupAsync(context, group, console, workers, executor))
+                .handleAsync((testsResult, error) -> {
+                    boolean result = Boolean.TRUE.equals(testsResult);
+                    final Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+                    if (cause instanceof IOException) {
+                        System.out.println("[ERROR] Test execution failed. Reason: " + cause.getMessage());
+                        result = false;
+                    } else if (cause != null) {
+                        throw new CompletionException(cause);
+                    }
+
+                    System.out.println("\n");
+                    finishGroup(context, group, result, start);
+                    return result;
+                }, executor)
+                .whenComplete((result, error) -> console.print(buffer));
+    }
+
+    private static CompletableFuture<Boolean> runTestsInGroupAsync(final Context context, final Group group,
+                                                                   final GroupConsole console, final Executor workers,
+                                                                   final Executor executor) {
+        final TestGraph graph = getTestGraph(group);
+        if (graph == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (graph.isChain()) {
+            return runTestChainAsync(context, group, graph.getTests().iterator(), executor);
         }
 
-        if (FAILED_TEST_COUNTER > 0) {
-            printFailedTestCounter();
+        // every test collects its output, the outputs are printed in the order of the group
+        final List<TestCase> tests = graph.getTests();
+        final List<CompletableFuture<Boolean>> results = new ArrayList<>(Collections.nCopies(tests.size(), null));
+        final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < tests.size(); i++) {
+            outputs.add(new ByteArrayOutputStream());
         }
 
+        for (int test : graph.getOrder()) {
+            final CompletableFuture<Boolean>[] dependencies = getDependencies(graph, test, results);
+            final Executor testExecutor = console.capturing(workers, outputs.get(test));
+            results.set(test, CompletableFuture.allOf(dependencies).thenComposeAsync(ignored -> allPassed(dependencies)
+                    ? new Engine(context, group, tests.get(test)).executeTestAsync(testExecutor).thenApply(success -> {
+                        if (!success) {
+                            context.failed();
+                        }
+                        return success;
+                    })
+                    : CompletableFuture.completedFuture(skipTest(context, tests.get(test))), testExecutor)
+                    .handleAsync((success, error) -> {
+                        final Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+                        if (cause instanceof IOException) {
+                            System.out.println("[ERROR] Test execution failed. Reason: " + cause.getMessage());
+                            context.failed();
+                            return false;
+                        } else if (cause != null) {
+                            throw new CompletionException(cause);
+                        }
+                        return success;
+                    }, testExecutor));
+        }
+
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).thenApplyAsync(ignored -> {
+            for (ByteArrayOutputStream output : outputs) {
+                System.out.print(output.toString());
+            }
+            return allPassed(results.toArray(new CompletableFuture[0]));
+        }, executor);
+    }
+
+    private static CompletableFuture<Boolean> runTestChainAsync(final Context context, final Group group,
+                                                                final Iterator<TestCase> tests, final Executor executor) {
+        if (!tests.hasNext()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return new Engine(context, group, tests.next()).executeTestAsync(executor).thenCompose(success -> {
+            if (success) {
+                return runTestChainAsync(context, group, tests, executor);
+            }
+
+            tests.forEachRemaining(test -> skipTest(context, test));
+            return CompletableFuture.completedFuture(false);
+        });
+    }
+
+    private static boolean awaitGroupResults(final List<? extends Future<Boolean>> results) {
+        boolean result = true;
+
+        for (Future<Boolean> groupResult : results) {
+            try {
+                result &= groupResult.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.out.println("[ERROR] Test execution interrupted.");
+                return false;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean runGroup(final Context context, final Group group) {
+        boolean result;
+        final long start = System.nanoTime();
+        System.out.print("Group: '" + group.getName() + "': \n");
+
+        try {
+            result = runTestsInGroup(context, group);
+        } catch (IOException e) {
+            System.out.println("[ERROR] Test execution failed. Reason: " + e.getMessage());
+            e.printStackTrace();
+            result = false;
+        }
+
+        System.out.println("\n");
+        finishGroup(context, group, result, start);
         return result;
     }
 
-    private static void printFailedTestCounter() {
+    private static void finishGroup(final Context context, final Group group, final boolean result, final long start) {
+        if (!result) {
+            context.getStatistics().addFailedGroup(group.getName());
+            context.failed();
+        } else if (context.getHistory() != null) {
+            // a failed group stops early, its duration would shorten the expected duration
+            context.getHistory().record(group.getName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        context.getLatencies().finishGroup(group);
+    }
+
+    private static void printFailedTestCounter(final long failedTests) {
         System.out.println("\n\n");
         System.out.println("***********************");
-        System.out.println("[ERROR] " + FAILED_TEST_COUNTER + " Test(s) failed.");
+        System.out.println("[ERROR] " + failedTests + " Test(s) failed.");
         System.out.println("***********************");
     }
 
     private static boolean runTestsInGroup(final Context context, final Group group) throws IOException {
-        boolean result = true;
+        final TestGraph graph = getTestGraph(group);
+        if (graph == null) {
+            return false;
+        }
+        if (!graph.isChain()) {
+            return runTestGraph(context, group, graph);
+        }
 
-        for (TestCase test : group.getTests()) {
-            if (!(new Engine(context, group, test)).executeTest()) {
-                result = false;
-                FAILED_TEST_COUNTER++;
-                break;
+        final Iterator<TestCase> tests = graph.getTests().iterator();
+        while (tests.hasNext()) {
+            if (!(new Engine(context, group, tests.next())).executeTest()) {
+                tests.forEachRemaining(test -> skipTest(context, test));
+                return false;
             }
         }
 
+        return true;
+    }
+
+    /**
+     * Returns the dependencies of the tests of the group or null if they are invalid. Groups loaded from a
+     * configuration file have been checked already, see {@link TestConfiguration#setGroups(List)}.
+     */
+    private static TestGraph getTestGraph(final Group group) {
+        try {
+            return TestGraph.of(group);
+        } catch (IllegalArgumentException e) {
+            System.out.println("[ERROR] Invalid group: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Runs each test of the group as soon as all tests it depends on have passed. Tests whose dependencies failed are
+     * skipped. The output of each test is collected and printed in the order of the group.
+     */
+    private static boolean runTestGraph(final Context context, final Group group, final TestGraph graph) {
+        final PrintStream originalOut = System.out;
+        final GroupConsole console = (originalOut instanceof GroupConsole) ? (GroupConsole) originalOut : new GroupConsole(originalOut);
+        final List<TestCase> tests = graph.getTests();
+        final List<CompletableFuture<Boolean>> results = new ArrayList<>(Collections.nCopies(tests.size(), null));
+        final List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (int i = 0; i < tests.size(); i++) {
+            outputs.add(new ByteArrayOutputStream());
+        }
+
+        System.setOut(console);
+        try {
+            for (int test : graph.getOrder()) {
+                final CompletableFuture<Boolean>[] dependencies = getDependencies(graph, test, results);
+                final Executor executor = console.capturing(context.getTestExecutor(), outputs.get(test));
+                results.set(test, CompletableFuture.allOf(dependencies).thenApplyAsync(ignored ->
+                        allPassed(dependencies) ? runTest(context, group, tests.get(test)) : skipTest(context, tests.get(test)),
+                        executor));
+            }
+
+            boolean result = true;
+            for (int i = 0; i < tests.size(); i++) {
+                result &= awaitTestResult(results.get(i));
+                originalOut.print(outputs.get(i).toString());
+            }
+            return result;
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    private static boolean runTest(final Context context, final Group group, final TestCase test) {
+        boolean result;
+        try {
+            result = new Engine(context, group, test).executeTest();
+        } catch (IOException e) {
+            System.out.println("[ERROR] Test execution failed. Reason: " + e.getMessage());
+            result = false;
+        }
+
+        if (!result) {
+            // tests of the group that run at the same time are cancelled as well
+            context.failed();
+        }
+        return result;
+    }
+
+    /**
+     * Counts and prints a test, that is not run because a test it depends on did not pass. Without dependsOn a test
+     * depends on the previous test of its group.
+     *
+     * @return false
+     */
+    private static boolean skipTest(final Context context, final TestCase test) {
+        final String name = (test.getName() != null) ? "'" + test.getName() + "'" : "Test";
+        System.out.println("\n\tSkipped " + name + ", a test it depends on did not pass.");
+        context.getStatistics().skipTest();
+        return false;
+    }
+
+    private static boolean awaitTestResult(final CompletableFuture<Boolean> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<Boolean>[] getDependencies(final TestGraph graph, final int test,
+                                                                final List<CompletableFuture<Boolean>> results) {
+        final int[] dependencies = graph.getDependencies(test);
+        final CompletableFuture<Boolean>[] result = new CompletableFuture[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            result[i] = results.get(dependencies[i]);
+        }
         return result;
     }
+
+    /**
+     * @param results completed results of tests
+     * @return true if all tests passed
+     */
+    private static boolean allPassed(final CompletableFuture<?>[] results) {
+        for (CompletableFuture<?> result : results) {
+            if (!Boolean.TRUE.equals(result.join())) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
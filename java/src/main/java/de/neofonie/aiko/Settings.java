@@ -0,0 +1,217 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Settings of a test run, e.g. given on the command line. Every setting has a default value.
+ */
+public class Settings {
+
+    /**
+     * Number of groups that are run concurrently, null if not given.
+     */
+    private Integer parallelism;
+
+    /**
+     * Requests are sent with a non-blocking client if true.
+     */
+    private boolean async = false;
+
+    /**
+     * Groups are run on virtual threads if true.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Optional path of the file the latency report is written to.
+     */
+    private String latencyReport;
+
+    /**
+     * Maximum number of open connections per domain.
+     */
+    private int maxConnectionsPerDomain = 20;
+
+    /**
+     * Idle connections are closed after this number of seconds.
+     */
+    private int idleTimeout = 30;
+
+    /**
+     * Maximum size of all referenced files, that are kept in memory, in megabytes. 0 disables the cache.
+     */
+    private int fixtureCacheSize = 64;
+
+    /**
+     * Groups are parsed while the tests run if true, instead of parsing the whole configuration first.
+     */
+    private boolean streaming = false;
+
+    /**
+     * Only the groups of this shard are run, null to run all groups.
+     */
+    private Shard shard;
+
+    /**
+     * Optional path of the file the result of the run is written to, e.g. to merge the results of shards.
+     */
+    private String result;
+
+    /**
+     * Optional path of the file with the durations of the groups of previous runs.
+     */
+    private String history;
+
+    /**
+     * If true, all groups are run after a failure and all failures are reported. Otherwise the run is cancelled after
+     * the first failure.
+     */
+    private boolean continueOnFailure = false;
+
+    /**
+     * @return number of groups that are run concurrently: 1 by default, unbounded with virtual threads
+     */
+    public int getParallelism() {
+        if (parallelism != null) {
+            return parallelism;
+        }
+        return virtualThreads ? Integer.MAX_VALUE : 1;
+    }
+
+    public void setParallelism(final int parallelism) {
+        Validate.isTrue(parallelism > 0, "Parallel has to be a positive number - given value %d.", parallelism);
+        this.parallelism = parallelism;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(final boolean async) {
+        this.async = async;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public void setVirtualThreads(final boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public String getLatencyReport() {
+        return latencyReport;
+    }
+
+    public void setLatencyReport(final String latencyReport) {
+        this.latencyReport = latencyReport;
+    }
+
+    public int getMaxConnectionsPerDomain() {
+        return maxConnectionsPerDomain;
+    }
+
+    public void setMaxConnectionsPerDomain(final int maxConnectionsPerDomain) {
+        Validate.isTrue(maxConnectionsPerDomain > 0, "Max connections has to be a positive number - given value %d.", maxConnectionsPerDomain);
+        this.maxConnectionsPerDomain = maxConnectionsPerDomain;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(final int idleTimeout) {
+        Validate.isTrue(idleTimeout > 0, "Idle timeout has to be a positive number - given value %d.", idleTimeout);
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getFixtureCacheSize() {
+        return fixtureCacheSize;
+    }
+
+    public void setFixtureCacheSize(final int fixtureCacheSize) {
+        Validate.isTrue(fixtureCacheSize > -1, "Fixture cache size has to be a positive number - given value %d.", fixtureCacheSize);
+        this.fixtureCacheSize = fixtureCacheSize;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(final boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public Shard getShard() {
+        return shard;
+    }
+
+    public void setShard(final Shard shard) {
+        this.shard = shard;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(final String result) {
+        this.result = result;
+    }
+
+    public String getHistory() {
+        return history;
+    }
+
+    public void setHistory(final String history) {
+        this.history = history;
+    }
+
+    public boolean isContinueOnFailure() {
+        return continueOnFailure;
+    }
+
+    public void setContinueOnFailure(final boolean continueOnFailure) {
+        this.continueOnFailure = continueOnFailure;
+    }
+
+    @Override
+    public String toString() {
+        return "Settings{" +
+                "parallelism=" + getParallelism() +
+                ", async=" + async +
+                ", virtualThreads=" + virtualThreads +
+                ", latencyReport='" + latencyReport + '\'' +
+                ", maxConnectionsPerDomain=" + maxConnectionsPerDomain +
+                ", idleTimeout=" + idleTimeout +
+                ", fixtureCacheSize=" + fixtureCacheSize +
+                ", streaming=" + streaming +
+                ", shard=" + shard +
+                ", result='" + result + '\'' +
+                ", history='" + history + '\'' +
+                ", continueOnFailure=" + continueOnFailure +
+                '}';
+    }
+}
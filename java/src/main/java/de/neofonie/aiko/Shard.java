@@ -0,0 +1,153 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * One of n parts of the groups of a run, so n independent processes together run every group exactly once. A group
+ * belongs to a shard by the hash of its name, so it stays in the same shard when other groups are added or removed.
+ */
+public final class Shard {
+
+    /**
+     * Number of the shard, starting with 1.
+     */
+    private final int index;
+
+    /**
+     * Number of shards.
+     */
+    private final int count;
+
+    public Shard(final int index, final int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count + " - expected i/n with 1 <= i <= n.");
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parses a shard like "2/4".
+     *
+     * @param shard number of the shard and number of shards separated by a slash
+     * @return parsed shard
+     * @throws IllegalArgumentException if the shard is invalid
+     */
+    public static Shard parse(final String shard) {
+        final String[] parts = shard.split("/", -1);
+        try {
+            if (parts.length == 2) {
+                return new Shard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid shard '" + shard + "' - expected i/n, e.g. 1/4.");
+    }
+
+    /**
+     * @param group group of the configuration
+     * @return true if the group belongs to this shard
+     */
+    public boolean contains(final Group group) {
+        return Math.floorMod(String.valueOf(group.getName()).hashCode(), count) == index - 1;
+    }
+
+    /**
+     * @param groups all groups of the configuration
+     * @return the groups of this shard in their order
+     */
+    public List<Group> filter(final List<Group> groups) {
+        return groups.stream().filter(this::contains).collect(Collectors.toList());
+    }
+
+    /**
+     * @param groups all groups of the configuration
+     * @return iterator of the groups of this shard, the given groups are read while it is iterated
+     */
+    public Iterator<Group> filter(final Iterator<Group> groups) {
+        return new Iterator<Group>() {
+
+            private Group next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && groups.hasNext()) {
+                    final Group group = groups.next();
+                    if (contains(group)) {
+                        next = group;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Group next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Group result = next;
+                next = null;
+                return result;
+            }
+        };
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Shard)) {
+            return false;
+        }
+        final Shard shard = (Shard) o;
+        return index == shard.index && count == shard.count;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * index + count;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+
+/**
+ * Dependencies between the tests of a group. By default every test depends on the previous test, so the tests run one
+ * after another. A test with {@code dependsOn} only depends on the named tests, and in a parallel group tests without
+ * {@code dependsOn} do not depend on any test. Tests whose dependencies have passed can run concurrently.
+ */
+public final class TestGraph {
+
+    private static final int[] NONE = new int[0];
+
+    private final List<TestCase> tests;
+
+    /**
+     * Indexes of the tests each test depends on.
+     */
+    private final int[][] dependencies;
+
+    /**
+     * Indexes of all tests, every test after its dependencies.
+     */
+    private final int[] order;
+
+    /**
+     * True if every test depends only on the previous test.
+     */
+    private final boolean chain;
+
+    private TestGraph(final List<TestCase> tests, final int[][] dependencies, final int[] order, final boolean chain) {
+        this.tests = tests;
+        this.dependencies = dependencies;
+        this.order = order;
+        this.chain = chain;
+    }
+
+    /**
+     * Returns the dependencies of the tests of the given group.
+     *
+     * @param group group of the configuration
+     * @return dependencies of the tests
+     * @throws IllegalArgumentException if a test depends on an unknown or ambiguous test or tests depend on each other
+     */
+    public static TestGraph of(final Group group) {
+        final List<TestCase> tests = (group.getTests() != null) ? group.getTests() : Collections.emptyList();
+        final Map<String, Integer> indexes = new HashMap<>();
+        final List<String> ambiguous = new ArrayList<>();
+        boolean chain = !group.isParallel();
+        for (int i = 0; i < tests.size(); i++) {
+            if (indexes.put(tests.get(i).getName(), i) != null) {
+                ambiguous.add(tests.get(i).getName());
+            }
+            chain &= (tests.get(i).getDependsOn() == null);
+        }
+
+        final int[][] dependencies = new int[tests.size()][];
+        for (int i = 0; i < tests.size(); i++) {
+            final TestCase test = tests.get(i);
+            if (test.getDependsOn() == null) {
+                dependencies[i] = (group.isParallel() || i == 0) ? NONE : new int[]{i - 1};
+                continue;
+            }
+
+            dependencies[i] = new int[test.getDependsOn().size()];
+            for (int j = 0; j < dependencies[i].length; j++) {
+                final String name = test.getDependsOn().get(j);
+                final Integer index = indexes.get(name);
+                if (index == null) {
+                    throw new IllegalArgumentException("Test '" + test.getName() + "' of group '" + group.getName()
+                            + "' depends on unknown test '" + name + "'.");
+                }
+                if (ambiguous.contains(name)) {
+                    throw new IllegalArgumentException("Test '" + test.getName() + "' of group '" + group.getName()
+                            + "' depends on '" + name + "', that is not unique in the group.");
+                }
+                dependencies[i][j] = index;
+            }
+        }
+
+        return new TestGraph(tests, dependencies, sort(group, tests, dependencies), chain);
+    }
+
+    /**
+     * Sorts the tests topologically. Of all tests, whose dependencies are sorted, the first test of the group is
+     * taken next, so the order is deterministic.
+     */
+    private static int[] sort(final Group group, final List<TestCase> tests, final int[][] dependencies) {
+        final int[] missing = new int[tests.size()];
+        final List<List<Integer>> dependents = new ArrayList<>();
+        for (int i = 0; i < tests.size(); i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tests.size(); i++) {
+            missing[i] = dependencies[i].length;
+            for (int dependency : dependencies[i]) {
+                dependents.get(dependency).add(i);
+            }
+        }
+
+        final Queue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < tests.size(); i++) {
+            if (missing[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        final int[] order = new int[tests.size()];
+        int sorted = 0;
+        while (!ready.isEmpty()) {
+            final int test = ready.poll();
+            order[sorted++] = test;
+            for (int dependent : dependents.get(test)) {
+                if (--missing[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (sorted < tests.size()) {
+            final List<String> cycle = new ArrayList<>();
+            for (int i = 0; i < tests.size(); i++) {
+                if (missing[i] > 0) {
+                    cycle.add(tests.get(i).getName());
+                }
+            }
+            throw new IllegalArgumentException("Tests of group '" + group.getName() + "' depend on each other: " + cycle + ".");
+        }
+        return order;
+    }
+
+    /**
+     * @return true if every test depends only on the previous test, so the tests run one after another
+     */
+    public boolean isChain() {
+        return chain;
+    }
+
+    public List<TestCase> getTests() {
+        return tests;
+    }
+
+    /**
+     * @param test index of a test
+     * @return indexes of the tests the test depends on
+     */
+    public int[] getDependencies(final int test) {
+        return dependencies[test].clone();
+    }
+
+    /**
+     * @return indexes of all tests, every test after the tests it depends on
+     */
+    public int[] getOrder() {
+        return order.clone();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko.yaml;
+
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.introspector.BeanAccess;
+import org.yaml.snakeyaml.introspector.FieldProperty;
+import org.yaml.snakeyaml.introspector.Property;
+import org.yaml.snakeyaml.introspector.PropertyUtils;
+
+import java.beans.IntrospectionException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Binds the properties of the configuration classes to their setters without bean introspection. SnakeYAML uses the
+ * {@link java.beans.Introspector} otherwise, which is a noticeable part of the startup of short runs. Properties, that
+ * are not listed here, are still introspected.
+ */
+class ConfigurationPropertyUtils extends PropertyUtils {
+
+    private static final Map<Class<?>, Map<String, Property>> PROPERTIES = new HashMap<>();
+
+    static {
+        bind(TestConfiguration.class, "groups", List.class, TestConfiguration::setGroups, Group.class);
+
+        bind(Group.class, "name", String.class, Group::setName);
+        bind(Group.class, "domain", String.class, Group::setDomain);
+        bind(Group.class, "tests", List.class, Group::setTests, TestCase.class);
+        bind(Group.class, "parallel", boolean.class, Group::setParallel);
+
+        bind(TestCase.class, "name", String.class, TestCase::setName);
+        bind(TestCase.class, "retry", Retry.class, TestCase::setRetry);
+        bind(TestCase.class, "request", RequestDefinition.class, TestCase::setRequest);
+        bind(TestCase.class, "response", ResponseDefinition.class, TestCase::setResponse);
+        bind(TestCase.class, "load", Load.class, TestCase::setLoad);
+        bind(TestCase.class, "dependsOn", List.class, TestCase::setDependsOn, String.class);
+
+        bind(RequestDefinition.class, "headers", Map.class, RequestDefinition::setHeaders, String.class, String.class);
+        bind(RequestDefinition.class, "body", String.class, RequestDefinition::setBody);
+        bind(RequestDefinition.class, "method", String.class, RequestDefinition::setMethod);
+        bind(RequestDefinition.class, "uri", String.class, RequestDefinition::setUri);
+        bind(RequestDefinition.class, "chunked", boolean.class, RequestDefinition::setChunked);
+
+        bind(ResponseDefinition.class, "headers", Map.class, ResponseDefinition::setHeaders, String.class, Object.class);
+        bind(ResponseDefinition.class, "body", String.class, ResponseDefinition::setBody);
+        bind(ResponseDefinition.class, "status", int.class, ResponseDefinition::setStatus);
+        bind(ResponseDefinition.class, "maxLatencyMs", Integer.class, ResponseDefinition::setMaxLatencyMs);
+        bind(ResponseDefinition.class, "maxTimeToFirstByteMs", Integer.class, ResponseDefinition::setMaxTimeToFirstByteMs);
+        bind(ResponseDefinition.class, "bodySha256", String.class, ResponseDefinition::setBodySha256);
+        bind(ResponseDefinition.class, "bodyMd5", String.class, ResponseDefinition::setBodyMd5);
+        bind(ResponseDefinition.class, "bodyLength", Long.class, ResponseDefinition::setBodyLength);
+        bind(ResponseDefinition.class, "bodyPaths", Map.class, ResponseDefinition::setBodyPaths, String.class, Object.class);
+
+        bind(Retry.class, "count", int.class, Retry::setCount);
+        bind(Retry.class, "delay", int.class, Retry::setDelay);
+        bind(Retry.class, "backoff", String.class, Retry::setBackoff);
+        bind(Retry.class, "maxDelay", int.class, Retry::setMaxDelay);
+        bind(Retry.class, "statuses", List.class, Retry::setStatuses, Integer.class);
+
+        bind(Load.class, "rate", int.class, Load::setRate);
+        bind(Load.class, "duration", int.class, Load::setDuration);
+        bind(Load.class, "concurrency", int.class, Load::setConcurrency);
+        bind(Load.class, "validateEvery", int.class, Load::setValidateEvery);
+        bind(Load.class, "maxErrorRate", double.class, Load::setMaxErrorRate);
+    }
+
+    /**
+     * Binds a property to its setter. The type may be the raw type of a generic property, e.g. List for List&lt;Group&gt;,
+     * the type arguments are given separately.
+     */
+    private static <T, V> void bind(final Class<T> beanType, final String name, final Class<? super V> type,
+                                     final BiConsumer<T, V> setter, final Class<?>... typeArguments) {
+        final FieldProperty field;
+        try {
+            field = new FieldProperty(beanType.getDeclaredField(name));
+        } catch (NoSuchFieldException e) {
+            throw new YAMLException("No field '" + name + "' in " + beanType.getName(), e);
+        }
+
+        PROPERTIES.computeIfAbsent(beanType, key -> new HashMap<>())
+                .put(name, new SetterProperty<>(name, type, setter, field, typeArguments));
+    }
+
+    @Override
+    public Property getProperty(final Class<?> type, final String name, final BeanAccess beanAccess)
+            throws IntrospectionException {
+        final Map<String, Property> properties = PROPERTIES.get(type);
+        final Property property = (properties != null) ? properties.get(name) : null;
+        return (property != null) ? property : super.getProperty(type, name, beanAccess);
+    }
+
+    /**
+     * Property, that is set by its setter and read from its field.
+     */
+    private static class SetterProperty<T, V> extends Property {
+
+        private final BiConsumer<T, V> setter;
+
+        private final FieldProperty field;
+
+        private final Class<?>[] typeArguments;
+
+        private SetterProperty(final String name, final Class<? super V> type, final BiConsumer<T, V> setter,
+                               final FieldProperty field, final Class<?>[] typeArguments) {
+            super(name, type);
+            this.setter = setter;
+            this.field = field;
+            this.typeArguments = (typeArguments.length > 0) ? typeArguments : null;
+        }
+
+        @Override
+        public Class<?>[] getActualTypeArguments() {
+            return typeArguments;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void set(final Object object, final Object value) {
+            setter.accept((T) object, (V) value);
+        }
+
+        @Override
+        public Object get(final Object object) {
+            return field.get(object);
+        }
+    }
+}
@@ -45,6 +45,11 @@ public class Group {
      */
     private List<TestCase> tests;
 
+    /**
+     * If true, tests without dependencies do not wait for the previous test, see {@link TestCase#getDependsOn()}.
+     */
+    private boolean parallel;
+
     public String getName() {
         return name;
     }
@@ -69,6 +74,14 @@ public class Group {
         this.tests = tests;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     @Override
     public String toString() {
         return "Group{" +
@@ -0,0 +1,227 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko.yaml;
+
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Reads the groups of a test configuration one after another while they are iterated. Only the group, that is read
+ * at the moment, is kept in memory, so groups, that have been run, can be garbage collected. Anchors can only be
+ * referenced within the group that defines them.
+ */
+public class GroupReader implements Iterator<Group>, Closeable {
+
+    private static final String GROUPS = "groups";
+
+    private final Reader reader;
+
+    /**
+     * Events of the whole configuration.
+     */
+    private final Parser parser;
+
+    private final Constructor constructor = TestConfiguration.getYamlConstructor();
+
+    private final Resolver resolver = new Resolver();
+
+    /**
+     * True if the parser is positioned within the sequence of groups.
+     */
+    private boolean withinGroups;
+
+    GroupReader(final Reader reader) {
+        this.reader = reader;
+        this.parser = new ParserImpl(new StreamReader(reader));
+
+        parser.getEvent();
+        if (!parser.checkEvent(Event.ID.StreamEnd)) {
+            parser.getEvent();
+            if (parser.checkEvent(Event.ID.MappingStart) || isNull(parser.peekEvent())) {
+                parser.getEvent();
+            } else {
+                throw new YAMLException("Expected a mapping with groups - got " + parser.peekEvent() + ".");
+            }
+        }
+    }
+
+    /**
+     * Moves the parser to the next group.
+     *
+     * @return true if there is another group
+     */
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (withinGroups) {
+                if (!parser.checkEvent(Event.ID.SequenceEnd)) {
+                    return true;
+                }
+                parser.getEvent();
+                withinGroups = false;
+            }
+
+            if (!parser.checkEvent(Event.ID.Scalar)) {
+                return false;
+            }
+
+            final ScalarEvent key = (ScalarEvent) parser.getEvent();
+            if (!GROUPS.equals(key.getValue())) {
+                throw new YAMLException("Unable to find property '" + key.getValue() + "' on class: "
+                        + TestConfiguration.class.getName() + " " + key.getStartMark());
+            }
+
+            if (parser.checkEvent(Event.ID.SequenceStart)) {
+                parser.getEvent();
+                withinGroups = true;
+            } else if (isNull(parser.peekEvent())) {
+                parser.getEvent();
+            } else {
+                throw new YAMLException("Expected a sequence of groups - got " + parser.peekEvent() + ".");
+            }
+        }
+    }
+
+    /**
+     * Reads the next group.
+     *
+     * @return next group
+     * @throws NoSuchElementException if there are no more groups
+     * @throws YAMLException if the group is invalid
+     */
+    @Override
+    public Group next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        constructor.setComposer(new Composer(new GroupEvents(), resolver));
+        final Group group = (Group) constructor.getSingleData(Group.class);
+        try {
+            TestConfiguration.checkDependencies(group);
+        } catch (IllegalArgumentException e) {
+            throw new YAMLException(e.getMessage(), e);
+        }
+        return group;
+    }
+
+    private boolean isNull(final Event event) {
+        if (!(event instanceof ScalarEvent)) {
+            return false;
+        }
+
+        final ScalarEvent scalar = (ScalarEvent) event;
+        return scalar.getTag() == null && Tag.NULL.equals(
+                resolver.resolve(NodeId.scalar, scalar.getValue(), scalar.getImplicit().canOmitTagInPlainScalar()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Events of the next group, wrapped into a document of its own.
+     */
+    private class GroupEvents implements Parser {
+
+        private final Queue<Event> events = new ArrayDeque<>();
+
+        /**
+         * Nesting depth within the group.
+         */
+        private int depth;
+
+        private boolean groupRead;
+
+        private boolean documentClosed;
+
+        private GroupEvents() {
+            final Event first = parser.peekEvent();
+            events.add(new StreamStartEvent(first.getStartMark(), first.getStartMark()));
+            events.add(new DocumentStartEvent(first.getStartMark(), first.getStartMark(), false, null, null));
+        }
+
+        @Override
+        public boolean checkEvent(final Event.ID choice) {
+            final Event event = peekEvent();
+            return event != null && event.is(choice);
+        }
+
+        @Override
+        public Event peekEvent() {
+            if (events.isEmpty()) {
+                readEvent();
+            }
+            return events.peek();
+        }
+
+        @Override
+        public Event getEvent() {
+            peekEvent();
+            return events.poll();
+        }
+
+        private void readEvent() {
+            if (!groupRead) {
+                final Event event = parser.getEvent();
+                if (event.is(Event.ID.MappingStart) || event.is(Event.ID.SequenceStart)) {
+                    depth++;
+                } else if (event.is(Event.ID.MappingEnd) || event.is(Event.ID.SequenceEnd)) {
+                    depth--;
+                }
+                groupRead = (depth == 0);
+                events.add(event);
+            } else if (!documentClosed) {
+                final Event last = parser.peekEvent();
+                events.add(new DocumentEndEvent(last.getStartMark(), last.getStartMark(), false));
+                documentClosed = true;
+            } else {
+                final Event last = parser.peekEvent();
+                events.add(new StreamEndEvent(last.getStartMark(), last.getStartMark()));
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko.yaml;
+
+/**
+ * Defines an optional load test for a test case. The request of the test case is sent with a fixed rate for the given
+ * duration, independent of how fast the responses arrive. Every response is checked for the expected status, a
+ * sample of them is checked against the complete response definition.
+ */
+public class Load {
+
+    /**
+     * Requests are started at most once per nanosecond.
+     */
+    public static final int MAX_RATE = 1_000_000_000;
+
+    /**
+     * Number of requests that are started per second, at most {@link #MAX_RATE}.
+     */
+    private int rate;
+
+    /**
+     * Duration of the load test in seconds.
+     */
+    private int duration;
+
+    /**
+     * Maximum number of requests in flight. Requests that are due while this number is reached are sent as soon as
+     * another request has been completed.
+     */
+    private int concurrency = 100;
+
+    /**
+     * Every n-th response is checked against the complete response definition, e.g. 10 for every tenth response.
+     */
+    private int validateEvery = 1;
+
+    /**
+     * Maximum percentage of failed requests for a successful load test, e.g. 0.5 for half a percent.
+     */
+    private double maxErrorRate = 0;
+
+    public int getRate() {
+        return rate;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public void setDuration(int duration) {
+        this.duration = duration;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getValidateEvery() {
+        return validateEvery;
+    }
+
+    public void setValidateEvery(int validateEvery) {
+        this.validateEvery = validateEvery;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public void setMaxErrorRate(double maxErrorRate) {
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    public boolean isInvalid() {
+        return rate < 1 || rate > MAX_RATE || duration < 1 || concurrency < 1 || validateEvery < 1 || maxErrorRate < 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Load{" +
+                "rate=" + rate +
+                ", duration=" + duration +
+                ", concurrency=" + concurrency +
+                ", validateEvery=" + validateEvery +
+                ", maxErrorRate=" + maxErrorRate +
+                '}';
+    }
+}
@@ -23,16 +23,39 @@ SOFTWARE.
  */
 package de.neofonie.aiko.yaml;
 
-import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.core.header.InBoundHeaders;
 import de.neofonie.aiko.Context;
+import de.neofonie.aiko.RequestTiming;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.FileEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.entity.NFileEntity;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * A definition of a request. It defines method and uri. Headers and body are optional.
@@ -60,6 +83,11 @@ public class RequestDefinition {
      */
     private String uri;
 
+    /**
+     * Optional, the body is sent with chunked transfer encoding instead of a Content-Length header if true.
+     */
+    private boolean chunked;
+
     public void setHeaders(Map<String, String> headers) {
         this.headers = headers;
     }
@@ -80,27 +108,64 @@ public class RequestDefinition {
         this.uri = uri;
     }
 
+    public boolean isChunked() {
+        return chunked;
+    }
+
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
     public boolean isInvalid() {
         return StringUtils.isEmpty(method) || StringUtils.isEmpty(uri);
     }
 
     /**
-     * Performs the request and returns the response.
+     * Performs the request with the shared client of the context and returns the response. Files, that are too large
+     * to be cached, are sent with the non-blocking client, which transfers them from their channel to the socket
+     * without copying them. Chunked bodies are streamed by the pooled client, because every chunk has to be framed.
      *
      * @param domain the request goes to this domain
-     * @param context the context is used to expand the body content, if a file is referenced.
+     * @param context the context provides the client and is used to expand the body content, if a file is referenced.
      * @return response of the request
      * @throws IOException
      */
     public ClientResponse performRequest(final String domain, final Context context) throws IOException {
-        final WebResource webResource = getWebResource(createClient(), domain);
-        final WebResource.Builder requestBuilder = webResource.getRequestBuilder();
-        final InputStream requestBody = context.expandBodyField(body);
+        return performRequest(domain, context, new RequestTiming());
+    }
+
+    /**
+     * Performs the request like {@link #performRequest(String, Context)} and records when it was sent. The body is
+     * expanded and the request is printed before, so that reading a file or the console output do not count as time
+     * of the request.
+     *
+     * @param domain the request goes to this domain
+     * @param context the context provides the client and is used to expand the body content, if a file is referenced.
+     * @param timing the start of the request is recorded here
+     * @return response of the request
+     * @throws IOException
+     */
+    public ClientResponse performRequest(final String domain, final Context context, final RequestTiming timing)
+            throws IOException {
+        final URI requestUri = getRequestUri(domain);
+        final Object requestBody = context.expandRequestEntity(body);
+        if (requestBody instanceof File && !chunked) {
+            return executeNonBlocking(createRequest(requestUri, requestBody, true), context, timing);
+        } else if (chunked) {
+            final HttpUriRequest request = createRequest(requestUri, requestBody, false);
+            context.getStatistics().addRequest(getSize(requestBody));
+            timing.start();
+            return executeBlocking(request, context);
+        }
+
+        final WebResource.Builder requestBuilder = context.getClient().resource(requestUri).getRequestBuilder();
         final String upperCaseMethod = method.toUpperCase();
         addHeaders(requestBuilder);
+        context.getStatistics().addRequest(getSize(requestBody));
 
         final ClientResponse response;
 
+        timing.start();
         if (requestBody != null) {
             response = requestBuilder.entity(requestBody).method(upperCaseMethod, ClientResponse.class, requestBody);
         } else {
@@ -110,21 +175,221 @@ public class RequestDefinition {
         return response;
     }
 
-    private Client createClient() {
-        Client client = Client.create();
-        client.setConnectTimeout(60_000);
-        client.setReadTimeout(60_000);
+    /**
+     * Performs the request with the non-blocking client of the context. The
+     * returned future is completed when the response has been received
+     * completely, no thread is blocked while the request is in flight.
+     *
+     * @param domain the request goes to this domain
+     * @param context the context provides the client and is used to expand the body content, if a file is referenced.
+     * @return future of the response
+     * @throws IOException if the body can not be expanded or the client can not be created
+     */
+    public CompletableFuture<ClientResponse> performRequestAsync(final String domain, final Context context) throws IOException {
+        return performRequestAsync(domain, context, new RequestTiming());
+    }
 
-        return client;
+    /**
+     * Performs the request with the non-blocking client of the context and records when it was sent, when the
+     * headers of the response arrived and when the response was received completely.
+     *
+     * @param domain the request goes to this domain
+     * @param context the context provides the client and is used to expand the body content, if a file is referenced.
+     * @param timing the points in time of the request are recorded here
+     * @return future of the response
+     * @throws IOException if the body can not be expanded or the client can not be created
+     */
+    public CompletableFuture<ClientResponse> performRequestAsync(final String domain, final Context context,
+                                                                 final RequestTiming timing) throws IOException {
+        return execute(prepareRequest(domain, context).get(), context, timing);
+    }
+
+    /**
+     * Prepares the request for the non-blocking client once, so that it can be sent many times, e.g. by a load test.
+     * The body is expanded and the request is printed only here. Every request of the returned supplier has its own
+     * entity, because entities keep the state of a send, e.g. the position in a file.
+     *
+     * @param domain the request goes to this domain
+     * @param context the context is used to expand the body content, if a file is referenced.
+     * @return supplier of requests, that can be sent with {@link #performRequestAsync(HttpUriRequest, Context, RequestTiming)}
+     * @throws IOException if the body can not be expanded
+     */
+    public Supplier<HttpUriRequest> prepareRequest(final String domain, final Context context) throws IOException {
+        final URI requestUri = getRequestUri(domain);
+        final Object requestBody = context.expandRequestEntity(body);
+        final HttpUriRequest template = createRequest(requestUri, null, true);
+
+        return () -> {
+            final RequestBuilder requestBuilder = RequestBuilder.copy(template);
+            final HttpEntity entity = createEntity(requestBody, true);
+            if (entity != null) {
+                requestBuilder.setEntity(entity);
+            }
+            return requestBuilder.build();
+        };
+    }
+
+    /**
+     * @param nonBlocking files are sent from their channel by the non-blocking client, otherwise from a stream
+     */
+    private HttpUriRequest createRequest(final URI requestUri, final Object requestBody, final boolean nonBlocking) {
+        final RequestBuilder requestBuilder = RequestBuilder.create(method.toUpperCase()).setUri(requestUri);
+        addHeaders(requestBuilder);
+
+        final HttpEntity entity = createEntity(requestBody, nonBlocking);
+        if (entity != null) {
+            requestBuilder.setEntity(entity);
+        }
+
+        return requestBuilder.build();
     }
 
-    private WebResource getWebResource(final Client client, final String domain) {
+    /**
+     * @return new entity of the expanded body, that must not be shared by requests, or null if there is no body
+     */
+    private HttpEntity createEntity(final Object requestBody, final boolean nonBlocking) {
+        final AbstractHttpEntity entity;
+        if (requestBody instanceof File && nonBlocking) {
+            entity = new NFileEntity((File) requestBody);
+        } else if (requestBody instanceof File) {
+            entity = new FileEntity((File) requestBody);
+        } else if (requestBody != null) {
+            entity = new ByteArrayEntity((byte[]) requestBody);
+        } else {
+            return null;
+        }
+
+        entity.setChunked(chunked);
+        return entity;
+    }
+
+    /**
+     * Sends the request with the pooled blocking client. The body of the response is streamed, closing it releases
+     * the connection. Like with the Jersey client, failures of the connection are thrown as
+     * {@link ClientHandlerException}.
+     */
+    private ClientResponse executeBlocking(final HttpUriRequest request, final Context context) throws IOException {
+        final HttpResponse response;
+        try {
+            response = context.getHttpClient().execute(request);
+        } catch (IOException e) {
+            throw new ClientHandlerException(e);
+        }
+        return toClientResponse(response, context);
+    }
+
+    /**
+     * Sends the request with the non-blocking client and waits for the response. The request is aborted like the
+     * requests of the blocking clients, if the run is cancelled within {@link Context#abortOnCancel}. Like with the
+     * Jersey client, failures of the connection are thrown as {@link ClientHandlerException}.
+     */
+    private ClientResponse executeNonBlocking(final HttpUriRequest request, final Context context,
+                                              final RequestTiming timing) throws IOException {
+        final CompletableFuture<ClientResponse> result = new CompletableFuture<>();
+        context.addBlockingRequest(send(request, context, timing, result));
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response.");
+        } catch (CancellationException e) {
+            throw new ClientHandlerException("Request aborted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ClientHandlerException(e.getCause());
+        }
+    }
+
+    /**
+     * Sends a prepared request with the non-blocking client of the context, nothing is printed.
+     *
+     * @param request request supplied by {@link #prepareRequest(String, Context)}, every request is sent once
+     * @param context the context provides the client
+     * @param timing the points in time of the request are recorded here
+     * @return future of the response
+     * @throws IOException if the client can not be created
+     */
+    public CompletableFuture<ClientResponse> performRequestAsync(final HttpUriRequest request, final Context context,
+                                                                 final RequestTiming timing) throws IOException {
+        return execute(request, context, timing);
+    }
+
+    private CompletableFuture<ClientResponse> execute(final HttpUriRequest request, final Context context,
+                                                      final RequestTiming timing) throws IOException {
+        final CompletableFuture<ClientResponse> result = new CompletableFuture<>();
+        final Future<HttpResponse> response = send(request, context, timing, result);
+        final Runnable removeCancellation = context.getCancellation().onCancel(() -> response.cancel(true));
+        result.whenComplete((ignored, error) -> removeCancellation.run());
+
+        return result;
+    }
+
+    /**
+     * Sends the request with the non-blocking client and completes the result with its response.
+     *
+     * @return future of the client, cancelling it aborts the request
+     */
+    private Future<HttpResponse> send(final HttpUriRequest request, final Context context, final RequestTiming timing,
+                                      final CompletableFuture<ClientResponse> result) throws IOException {
+        final HttpEntity requestEntity = (request instanceof HttpEntityEnclosingRequest)
+                ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        context.getStatistics().addRequest((requestEntity != null) ? requestEntity.getContentLength() : 0);
+
+        final CloseableHttpAsyncClient asyncClient = context.getAsyncClient();
+        timing.start();
+        return asyncClient.execute(HttpAsyncMethods.create(request), new SpooledResponseConsumer(timing), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(final HttpResponse response) {
+                try {
+                    result.complete(toClientResponse(response, context));
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(final Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+    }
+
+    private long getSize(final Object requestBody) {
+        if (requestBody instanceof File) {
+            return ((File) requestBody).length();
+        } else if (requestBody != null) {
+            return ((byte[]) requestBody).length;
+        }
+        return 0;
+    }
+
+    private ClientResponse toClientResponse(final HttpResponse response, final Context context) throws IOException {
+        final InBoundHeaders headers = new InBoundHeaders();
+        for (Header header : response.getAllHeaders()) {
+            headers.add(header.getName(), header.getValue());
+        }
+
+        final HttpEntity entity = response.getEntity();
+        final InputStream entityStream = (entity != null) ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+
+        return new ClientResponse(response.getStatusLine().getStatusCode(), headers, entityStream,
+                context.getClient().getMessageBodyWorkers());
+    }
+
+    private URI getRequestUri(final String domain) {
         String path = getUri().replaceAll("/$", "");
         URI uri = URI.create(domain + path);
 
         System.out.println("\t\t" + method + " " + uri.toASCIIString());
 
-        return client.resource(uri);
+        return uri;
     }
 
     private void addHeaders(WebResource.Builder requestBuilder) {
@@ -136,6 +401,15 @@ public class RequestDefinition {
         }
     }
 
+    private void addHeaders(RequestBuilder requestBuilder) {
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                requestBuilder.addHeader(entry.getKey(), entry.getValue());
+                System.out.println("\t\t  " + entry.getKey() + ": " + entry.getValue());
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "RequestDefinition{" +
@@ -143,6 +417,7 @@ public class RequestDefinition {
                 ", body='" + body + '\'' +
                 ", method='" + method + '\'' +
                 ", uri='" + uri + '\'' +
+                ", chunked=" + chunked +
                 '}';
     }
 }
@@ -23,16 +23,27 @@ SOFTWARE.
  */
 package de.neofonie.aiko.yaml;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.sun.jersey.api.client.ClientResponse;
 import org.apache.commons.io.IOUtils;
-import org.json.JSONException;
-import org.skyscreamer.jsonassert.JSONAssert;
-import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.NullOutputStream;
 
 import java.io.IOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import de.neofonie.aiko.Context;
+import de.neofonie.aiko.HeaderMatcher;
+import de.neofonie.aiko.JsonComparator;
+import de.neofonie.aiko.JsonPathMatcher;
+import de.neofonie.aiko.RequestTiming;
 import java.io.InputStream;
 import org.apache.http.HttpHeaders;
 import org.apache.http.entity.ContentType;
@@ -44,9 +55,15 @@ import org.apache.http.entity.ContentType;
 public class ResponseDefinition {
 
     /**
-     * Headers that should be sent with the response.
+     * Headers that should be sent with the response, the values are plain values or matchers, see
+     * {@link HeaderMatcher}.
      */
-    private Map<String, String> headers;
+    private Map<String, ?> headers;
+
+    /**
+     * Headers compiled when they are set.
+     */
+    private List<HeaderMatcher> headerMatchers = Collections.emptyList();
 
     /**
      * Optional body, can be a json-string ("{'json': 'text'}") or file
@@ -59,20 +76,110 @@ public class ResponseDefinition {
      */
     private int status;
 
-    public void setHeaders(Map<String, String> headers) {
+    /**
+     * Optional maximum time in milliseconds until the response has been received completely.
+     */
+    private Integer maxLatencyMs;
+
+    /**
+     * Optional maximum time in milliseconds until the status line and headers of the response have been received.
+     */
+    private Integer maxTimeToFirstByteMs;
+
+    /**
+     * Optional SHA-256 digest of the body as hex string.
+     */
+    private String bodySha256;
+
+    /**
+     * Optional MD5 digest of the body as hex string.
+     */
+    private String bodyMd5;
+
+    /**
+     * Optional length of the body in bytes.
+     */
+    private Long bodyLength;
+
+    /**
+     * Optional JSON paths of single values of the body and their expected values, can not be combined with body.
+     */
+    private Map<String, Object> bodyPaths;
+
+    /**
+     * Parsed inline JSON body, parsed on first use.
+     */
+    private volatile Object expectedJson;
+
+    /**
+     * Compiled body paths, null without body paths.
+     */
+    private JsonPathMatcher bodyPathMatcher;
+
+    /**
+     * Sets and compiles the expected headers.
+     *
+     * @param headers expected headers
+     * @throws IllegalArgumentException if a header matcher is invalid
+     */
+    public void setHeaders(Map<String, ?> headers) {
+        final List<HeaderMatcher> matchers = new ArrayList<>();
+        if (headers != null) {
+            for (Map.Entry<String, ?> entry : headers.entrySet()) {
+                matchers.add(HeaderMatcher.compile(entry.getKey(), entry.getValue()));
+            }
+        }
+
         this.headers = headers;
+        this.headerMatchers = matchers;
     }
 
     public void setBody(String body) {
         this.body = body;
+        this.expectedJson = null;
+    }
+
+    public int getStatus() {
+        return status;
     }
 
     public void setStatus(int status) {
         this.status = status;
     }
 
+    public void setMaxLatencyMs(Integer maxLatencyMs) {
+        this.maxLatencyMs = maxLatencyMs;
+    }
+
+    public void setMaxTimeToFirstByteMs(Integer maxTimeToFirstByteMs) {
+        this.maxTimeToFirstByteMs = maxTimeToFirstByteMs;
+    }
+
+    public void setBodySha256(String bodySha256) {
+        this.bodySha256 = bodySha256;
+    }
+
+    public void setBodyMd5(String bodyMd5) {
+        this.bodyMd5 = bodyMd5;
+    }
+
+    public void setBodyLength(Long bodyLength) {
+        this.bodyLength = bodyLength;
+    }
+
+    /**
+     * Sets and compiles the expected body paths.
+     *
+     * @param bodyPaths JSON paths and their expected values
+     * @throws IllegalArgumentException if a path is no valid JSON path
+     */
+    public void setBodyPaths(Map<String, Object> bodyPaths) {
+        this.bodyPathMatcher = (bodyPaths != null) ? new JsonPathMatcher(bodyPaths) : null;
+        this.bodyPaths = bodyPaths;
+    }
+
     public boolean isInvalid() {
-        return status == 0;
+        return status == 0 || (body != null && bodyPaths != null);
     }
 
     /**
@@ -95,6 +202,31 @@ public class ResponseDefinition {
         return isOneHeaderIncorrect(response) || isStatusIncorrect(response) || isBodyIncorrect(response, context);
     }
 
+    /**
+     * Compares the timing of the actual response with the maximum latency and
+     * time to first byte of this definition.
+     *
+     * @param timing timing of the actual response, that has been received
+     * completely
+     * @return true - the response was slower than allowed | false - the
+     * response was fast enough or no maximum is defined
+     */
+    public boolean isTooSlow(final RequestTiming timing) {
+        boolean tooSlow = false;
+
+        if (maxTimeToFirstByteMs != null && timing.getTimeToFirstByteMillis() > maxTimeToFirstByteMs) {
+            System.out.println("\t[ERROR] Too slow: Expected first byte within '" + maxTimeToFirstByteMs + "' ms - got '" + timing.getTimeToFirstByteMillis() + "' ms.");
+            tooSlow = true;
+        }
+
+        if (maxLatencyMs != null && timing.getLatencyMillis() > maxLatencyMs) {
+            System.out.println("\t[ERROR] Too slow: Expected response within '" + maxLatencyMs + "' ms - got '" + timing.getLatencyMillis() + "' ms.");
+            tooSlow = true;
+        }
+
+        return tooSlow;
+    }
+
     private boolean isStatusIncorrect(final ClientResponse response) {
         boolean statusIncorrect = false;
 
@@ -109,22 +241,90 @@ public class ResponseDefinition {
     private boolean isOneHeaderIncorrect(final ClientResponse response) {
         boolean headerIncorrect = false;
 
-        if (headers != null) {
-            for (Map.Entry<String, String> entry : headers.entrySet()) {
-                final String realValue = response.getHeaders().getFirst(entry.getKey());
-                final String expectedValue = entry.getValue();
-
-                if ((!expectedValue.equals(realValue))) {
-                    System.out.println("\t[ERROR] Wrong content type: Expected '" + expectedValue + "' - got '" + realValue + "'.");
-                    headerIncorrect = true;
-                }
+        for (HeaderMatcher matcher : headerMatchers) {
+            final String mismatch = matcher.findMismatch(response.getHeaders());
+            if (mismatch != null) {
+                System.out.println("\t[ERROR] " + mismatch);
+                headerIncorrect = true;
             }
         }
 
         return headerIncorrect;
     }
 
+    /**
+     * Checks the body and its digests. The digests and the length are computed while the body is read, so the body is
+     * read only once and never kept in memory for them.
+     */
     private boolean isBodyIncorrect(final ClientResponse response, final Context context) throws IOException {
+        if (bodySha256 == null && bodyMd5 == null && bodyLength == null) {
+            return isBodyContentIncorrect(response, context);
+        }
+
+        final MessageDigest sha256 = (bodySha256 != null) ? getMessageDigest("SHA-256") : null;
+        final MessageDigest md5 = (bodyMd5 != null) ? getMessageDigest("MD5") : null;
+        InputStream digestStream = response.getEntityInputStream();
+        if (sha256 != null) {
+            digestStream = new DigestInputStream(digestStream, sha256);
+        }
+        if (md5 != null) {
+            digestStream = new DigestInputStream(digestStream, md5);
+        }
+        final CountingInputStream countingStream = new CountingInputStream(digestStream);
+
+        boolean bodyIncorrect;
+        response.setEntityInputStream(new CloseShieldInputStream(countingStream));
+        try {
+            bodyIncorrect = isBodyContentIncorrect(response, context);
+            IOUtils.copyLarge(countingStream, NullOutputStream.NULL_OUTPUT_STREAM);
+        } finally {
+            response.setEntityInputStream(countingStream);
+        }
+
+        bodyIncorrect |= isDigestIncorrect("SHA-256", bodySha256, sha256);
+        bodyIncorrect |= isDigestIncorrect("MD5", bodyMd5, md5);
+        if (bodyLength != null && bodyLength != countingStream.getByteCount()) {
+            System.out.println("\t[ERROR] Wrong body length: Expected '" + bodyLength + "' - got '" + countingStream.getByteCount() + "'.");
+            bodyIncorrect = true;
+        }
+
+        return bodyIncorrect;
+    }
+
+    private static MessageDigest getMessageDigest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " is not supported.", e);
+        }
+    }
+
+    private static boolean isDigestIncorrect(final String algorithm, final String expected, final MessageDigest digest) {
+        if (expected == null) {
+            return false;
+        }
+
+        final String actual = toHex(digest.digest());
+        if (!expected.trim().equalsIgnoreCase(actual)) {
+            System.out.println("\t[ERROR] Wrong body " + algorithm + ": Expected '" + expected + "' - got '" + actual + "'.");
+            return true;
+        }
+        return false;
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return result.toString();
+    }
+
+    private boolean isBodyContentIncorrect(final ClientResponse response, final Context context) throws IOException {
+        if (bodyPaths != null) {
+            return isBodyPathIncorrect(response);
+        }
+
         final String contentType = response.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
 
         if (contentType != null && contentType.contains(ContentType.APPLICATION_JSON.getMimeType())) {
@@ -138,27 +338,44 @@ public class ResponseDefinition {
         boolean bodyIncorrect = false;
 
         if (body != null) {
-            String responseBody = IOUtils.toString(response.getEntityInputStream());
-            try (InputStream expectedStream = context.expandBodyField(body)) {
-                if (expectedStream != null) {
-                    String expectedBody = IOUtils.toString(expectedStream);
-                    try {
-                        JSONAssert.assertEquals(expectedBody, responseBody, JSONCompareMode.NON_EXTENSIBLE);
-                    } catch (JSONException | AssertionError e) {
-                        System.out.println("\t\t****************************************");
-                        System.out.println("\t\tGot: " + responseBody);
-                        System.out.println("\t\t****************************************");
-                        System.out.println("\t\tExpected: " + expectedBody);
-                        System.out.println("\t\t****************************************");
-                        System.out.println("\t[ERROR] " + e.getMessage().replaceAll("(\\r|\\n|\\r\\n)+", "\n\t"));
+            try {
+                final Object expected = getExpectedJson(context);
+                if (expected != null) {
+                    final String mismatch = JsonComparator.findMismatch(expected, response.getEntityInputStream());
+                    if (mismatch != null) {
+                        System.out.println("\t[ERROR] Body did not match: " + mismatch);
                         bodyIncorrect = true;
                     }
                 }
+            } catch (JsonProcessingException e) {
+                System.out.println("\t[ERROR] Expected body is no valid JSON: " + e.getOriginalMessage());
+                bodyIncorrect = true;
             }
         }
         return bodyIncorrect;
     }
 
+    private boolean isBodyPathIncorrect(final ClientResponse response) throws IOException {
+        final List<String> mismatches = bodyPathMatcher.findMismatches(response.getEntityInputStream());
+        for (String mismatch : mismatches) {
+            System.out.println("\t[ERROR] Body did not match: " + mismatch);
+        }
+        return !mismatches.isEmpty();
+    }
+
+    private Object getExpectedJson(final Context context) throws IOException {
+        if (body.startsWith("@")) {
+            return context.getExpectedJson(body);
+        }
+
+        Object result = expectedJson;
+        if (result == null) {
+            result = context.getExpectedJson(body);
+            expectedJson = result;
+        }
+        return result;
+    }
+
     private boolean isByteContentIncorrect(final ClientResponse response, final Context context) throws IOException {
         boolean bodyIncorrect = false;
 
@@ -184,6 +401,12 @@ public class ResponseDefinition {
                 + "headers=" + headers
                 + ", body='" + body + '\''
                 + ", status=" + status
+                + ", maxLatencyMs=" + maxLatencyMs
+                + ", maxTimeToFirstByteMs=" + maxTimeToFirstByteMs
+                + ", bodySha256='" + bodySha256 + '\''
+                + ", bodyMd5='" + bodyMd5 + '\''
+                + ", bodyLength=" + bodyLength
+                + ", bodyPaths=" + bodyPaths
                 + '}';
     }
 }
@@ -23,9 +23,14 @@ SOFTWARE.
  */
 package de.neofonie.aiko.yaml;
 
+import de.neofonie.aiko.Backoff;
+
+import java.util.List;
+
 /**
  * Defines the optional retry with a count and delay in milliseconds. If the count is zero there will be no retries for
- * an operation, that failed once.
+ * an operation, that failed once. The delay of each retry can grow with a backoff policy up to a maximum delay. A
+ * Retry-After header of a failed response replaces the delay, it is limited by the maximum delay too.
  */
 public class Retry {
 
@@ -39,6 +44,26 @@ public class Retry {
      */
     private int delay;
 
+    /**
+     * Optional backoff policy: fixed, linear, exponential or decorrelated-jitter. Default is fixed.
+     */
+    private String backoff;
+
+    /**
+     * Backoff policy of the name, resolved when the configuration is loaded.
+     */
+    private Backoff backoffPolicy = Backoff.FIXED;
+
+    /**
+     * Optional maximum delay in milliseconds between retries, 0 for no maximum.
+     */
+    private int maxDelay;
+
+    /**
+     * Optional status codes, that are retried, e.g. [429, 503]. If empty, every failed test is retried.
+     */
+    private List<Integer> statuses;
+
     public int getCount() {
         return count;
     }
@@ -55,11 +80,47 @@ public class Retry {
         this.delay = delay;
     }
 
+    public String getBackoff() {
+        return backoff;
+    }
+
+    /**
+     * @param backoff name of the backoff policy, null for the fixed delay
+     * @throws IllegalArgumentException if there is no policy with this name
+     */
+    public void setBackoff(String backoff) {
+        this.backoffPolicy = Backoff.fromName(backoff);
+        this.backoff = backoff;
+    }
+
+    public Backoff getBackoffPolicy() {
+        return backoffPolicy;
+    }
+
+    public int getMaxDelay() {
+        return maxDelay;
+    }
+
+    public void setMaxDelay(int maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    public List<Integer> getStatuses() {
+        return statuses;
+    }
+
+    public void setStatuses(List<Integer> statuses) {
+        this.statuses = statuses;
+    }
+
     @Override
     public String toString() {
         return "Retry{" +
                 "count=" + count +
                 ", delay=" + delay +
+                ", backoff='" + backoff + '\'' +
+                ", maxDelay=" + maxDelay +
+                ", statuses=" + statuses +
                 '}';
     }
 }
@@ -0,0 +1,225 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko.yaml;
+
+import de.neofonie.aiko.RequestTiming;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.FileContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Receives the response of the non-blocking client without keeping large bodies in memory. Bodies up to the
+ * threshold are kept in memory, larger bodies are written to a temporary file, directly from the socket if the
+ * connection supports it. The body is read from the file while the response is checked, the file is deleted when
+ * the body is closed.
+ */
+class SpooledResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+
+    /**
+     * Bodies up to this size in bytes are kept in memory.
+     */
+    static final int MEMORY_THRESHOLD = 64 * 1024;
+
+    private final RequestTiming timing;
+    private final int threshold;
+    private final ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+
+    private HttpResponse response;
+    private HttpEntity entity;
+    private MemoryBody memory;
+    private File file;
+    private FileChannel channel;
+    private long fileSize;
+
+    SpooledResponseConsumer(final RequestTiming timing) {
+        this(timing, MEMORY_THRESHOLD);
+    }
+
+    SpooledResponseConsumer(final RequestTiming timing, final int threshold) {
+        this.timing = timing;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void onResponseReceived(final HttpResponse response) {
+        timing.firstByteReceived();
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(final HttpEntity entity, final ContentType contentType) throws IOException {
+        this.entity = entity;
+        final long length = entity.getContentLength();
+        if (length > threshold) {
+            spool();
+        } else {
+            memory = new MemoryBody((length >= 0) ? (int) length : 4096);
+        }
+    }
+
+    @Override
+    protected void onContentReceived(final ContentDecoder decoder, final IOControl ioControl) throws IOException {
+        if (channel == null) {
+            int read;
+            while ((read = decoder.read(buffer)) > 0) {
+                memory.write(buffer.array(), 0, read);
+                buffer.clear();
+                if (memory.size() > threshold) {
+                    spool();
+                    break;
+                }
+            }
+        }
+
+        if (channel != null) {
+            if (decoder instanceof FileContentDecoder) {
+                long transferred;
+                while ((transferred = ((FileContentDecoder) decoder).transfer(channel, fileSize, Integer.MAX_VALUE)) > 0) {
+                    fileSize += transferred;
+                }
+            } else {
+                while (decoder.read(buffer) > 0) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        fileSize += channel.write(buffer, fileSize);
+                    }
+                    buffer.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the body received so far to a temporary file, the rest of the body is written there as well.
+     */
+    private void spool() throws IOException {
+        file = File.createTempFile("aiko-response", ".tmp");
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+        if (memory != null) {
+            final ByteBuffer received = memory.toByteBuffer();
+            while (received.hasRemaining()) {
+                fileSize += channel.write(received, fileSize);
+            }
+            memory = null;
+        }
+    }
+
+    @Override
+    protected HttpResponse buildResult(final HttpContext context) throws IOException {
+        timing.completed();
+        if (entity == null) {
+            return response;
+        }
+
+        final BasicHttpEntity body = new BasicHttpEntity();
+        body.setContentType(entity.getContentType());
+        body.setContentEncoding(entity.getContentEncoding());
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            body.setContent(new TemporaryFileInputStream(file));
+            body.setContentLength(fileSize);
+            // the file belongs to the body now
+            file = null;
+        } else {
+            body.setContent(memory.toInputStream());
+            body.setContentLength(memory.size());
+        }
+        response.setEntity(body);
+
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        memory = null;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file.toPath());
+            }
+        } catch (IOException e) {
+            System.out.println("[ERROR] Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Body in memory, that is read without copying it.
+     */
+    private static final class MemoryBody extends ByteArrayOutputStream {
+
+        private MemoryBody(final int size) {
+            super(size);
+        }
+
+        private ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        private InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * Reads a temporary file and deletes it when it is closed.
+     */
+    private static final class TemporaryFileInputStream extends FileInputStream {
+
+        private final File file;
+
+        private TemporaryFileInputStream(final File file) throws IOException {
+            super(file);
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+}
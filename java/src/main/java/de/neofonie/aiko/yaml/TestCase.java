@@ -23,6 +23,8 @@ SOFTWARE.
  */
 package de.neofonie.aiko.yaml;
 
+import java.util.List;
+
 /**
  * A test case has a name, request definition and response definition definition. If a retry is defined, it will be used to retry failed test.
  */
@@ -48,6 +50,17 @@ public class TestCase {
      */
     private ResponseDefinition response;
 
+    /**
+     * Optional load test, the request is replayed with a fixed rate instead of being sent once.
+     */
+    private Load load;
+
+    /**
+     * Names of the tests of the group, that have to pass before this test is run. Without dependencies a test waits
+     * for the previous test, unless the group is parallel.
+     */
+    private List<String> dependsOn;
+
     public String getName() {
         return name;
     }
@@ -80,6 +93,22 @@ public class TestCase {
         this.response = response;
     }
 
+    public Load getLoad() {
+        return load;
+    }
+
+    public void setLoad(Load load) {
+        this.load = load;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
+    public void setDependsOn(List<String> dependsOn) {
+        this.dependsOn = dependsOn;
+    }
+
     @Override
     public String toString() {
         return "TestCase{" +
@@ -87,6 +116,8 @@ public class TestCase {
                 ", retry=" + retry +
                 ", request=" + request +
                 ", response=" + response +
+                ", load=" + load +
+                ", dependsOn=" + dependsOn +
                 '}';
     }
 }
@@ -1,4 +1,5 @@
 package de.neofonie.aiko.yaml;
+
 /*
 The MIT License (MIT)
 
@@ -22,18 +23,31 @@ LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
  */
+import de.neofonie.aiko.TestGraph;
 import org.yaml.snakeyaml.TypeDescription;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.reader.UnicodeReader;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This test configuration is used as a container for the different test groups.
  */
 public class TestConfiguration {
 
+    /**
+     * SnakeYAML instances are not thread-safe, so every thread reuses its own instance and its cached properties.
+     */
+    private static final ThreadLocal<Yaml> YAML = ThreadLocal.withInitial(() -> new Yaml(getYamlConstructor()));
+
     /**
      * Test groups.
      */
@@ -43,10 +57,30 @@ public class TestConfiguration {
         return groups;
     }
 
+    /**
+     * @param groups groups of the configuration
+     * @throws IllegalArgumentException if a test depends on an unknown or ambiguous test or tests depend on each other
+     */
     public void setGroups(List<Group> groups) {
+        if (groups != null) {
+            groups.forEach(TestConfiguration::checkDependencies);
+        }
         this.groups = groups;
     }
 
+    /**
+     * Checks the dependencies of the tests of the group, so that an invalid {@code dependsOn} is reported when the
+     * configuration is loaded and not when the group is run.
+     *
+     * @param group group of the configuration
+     * @throws IllegalArgumentException if a test depends on an unknown or ambiguous test or tests depend on each other
+     */
+    static void checkDependencies(final Group group) {
+        if (group != null) {
+            TestGraph.of(group);
+        }
+    }
+
     /**
      * Returns the parsed test configuration from the given file.
      *
@@ -56,8 +90,64 @@ public class TestConfiguration {
      */
     public static TestConfiguration getFromFile(final File file) throws IOException {
         try (InputStream input = new FileInputStream(file)) {
-            Yaml yaml = new Yaml(TestConfiguration.getYamlConstructor());
-            return yaml.loadAs(input, TestConfiguration.class);
+            return YAML.get().loadAs(input, TestConfiguration.class);
+        }
+    }
+
+    /**
+     * Returns one test configuration with the groups of all given files. The files are parsed concurrently, the
+     * groups keep the order of the files.
+     *
+     * @param files yml files that contain test configurations
+     * @return test configuration with the groups of all files
+     * @throws IOException if a file can not be read
+     */
+    public static TestConfiguration getFromFiles(final List<File> files) throws IOException {
+        if (files.size() == 1) {
+            return getFromFile(files.get(0));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            final List<Future<TestConfiguration>> configurations = new ArrayList<>();
+            for (File file : files) {
+                configurations.add(executor.submit(() -> getFromFile(file)));
+            }
+
+            final List<Group> groups = new ArrayList<>();
+            for (int i = 0; i < files.size(); i++) {
+                final TestConfiguration configuration = getConfiguration(configurations.get(i), files.get(i));
+                if (configuration != null && configuration.getGroups() != null) {
+                    groups.addAll(configuration.getGroups());
+                }
+            }
+
+            final TestConfiguration result = new TestConfiguration();
+            result.setGroups(groups);
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TestConfiguration getConfiguration(final Future<TestConfiguration> configuration, final File file)
+            throws IOException {
+        try {
+            return configuration.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + file + ".");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof YAMLException) {
+                throw new YAMLException("Could not load " + file + ": " + e.getCause().getMessage(), e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -72,6 +162,18 @@ public class TestConfiguration {
         return getFromFile(new File(filePath));
     }
 
+    /**
+     * Returns a reader, that parses the groups of the given file one after another while they are iterated. The reader
+     * has to be closed.
+     *
+     * @param file yml file that contains the test configuration
+     * @return reader of the groups
+     * @throws IOException if the file can not be opened
+     */
+    public static GroupReader getGroupReader(final File file) throws IOException {
+        return new GroupReader(new UnicodeReader(new FileInputStream(file)));
+    }
+
     /**
      * Returns the parsed test configuration from the given input string.
      *
@@ -79,12 +181,12 @@ public class TestConfiguration {
      * @return parsed test configuration
      */
     public static TestConfiguration getFromString(final String input) {
-        Yaml yaml = new Yaml(TestConfiguration.getYamlConstructor());
-        return yaml.loadAs(input, TestConfiguration.class);
+        return YAML.get().loadAs(input, TestConfiguration.class);
     }
 
-    private static Constructor getYamlConstructor() {
+    static Constructor getYamlConstructor() {
         Constructor constructor = new Constructor(TestConfiguration.class);
+        constructor.setPropertyUtils(new ConfigurationPropertyUtils());
 
         TypeDescription testConfigurationTypeDescription = new TypeDescription(TestConfiguration.class);
         TypeDescription groupTypeDescription = new TypeDescription(Group.class);
@@ -99,7 +201,7 @@ public class TestConfiguration {
         testCaseTypeDescription.putListPropertyType("request", RequestDefinition.class);
         testCaseTypeDescription.putListPropertyType("response", ResponseDefinition.class);
         requestTypeDescription.putMapPropertyType("headers", String.class, String.class);
-        responseTypeDescription.putMapPropertyType("headers", String.class, String.class);
+        responseTypeDescription.putMapPropertyType("headers", String.class, Object.class);
 
         constructor.addTypeDescription(testConfigurationTypeDescription);
         constructor.addTypeDescription(groupTypeDescription);
@@ -0,0 +1,81 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CancellationTest {
+
+    @Test
+    public void shouldRunCallbacksOnceWhenCancelled() {
+        final Cancellation cancellation = new Cancellation();
+        final AtomicInteger calls = new AtomicInteger();
+        cancellation.onCancel(calls::incrementAndGet);
+
+        assertThat(cancellation.isCancelled()).isFalse();
+        cancellation.cancel();
+        cancellation.cancel();
+
+        assertThat(cancellation.isCancelled()).isTrue();
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldRunCallbackImmediatelyIfAlreadyCancelled() {
+        final Cancellation cancellation = new Cancellation();
+        final AtomicInteger calls = new AtomicInteger();
+        cancellation.cancel();
+
+        cancellation.onCancel(calls::incrementAndGet);
+
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotRunRemovedCallback() {
+        final Cancellation cancellation = new Cancellation();
+        final AtomicInteger calls = new AtomicInteger();
+        final Runnable removeCallback = cancellation.onCancel(calls::incrementAndGet);
+
+        removeCallback.run();
+        cancellation.cancel();
+
+        assertThat(calls.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldStopWaitingWhenCancelled() throws InterruptedException {
+        final Cancellation cancellation = new Cancellation();
+        new Thread(cancellation::cancel).start();
+
+        final long start = System.currentTimeMillis();
+        assertThat(cancellation.await(10000)).isTrue();
+        assertThat(System.currentTimeMillis() - start).isLessThan(5000);
+        assertThat(new Cancellation().await(10)).isFalse();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConfigurationFilesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReturnFileAsGiven() throws IOException {
+        final File file = new File(folder.getRoot(), "missing.yml");
+
+        assertThat(ConfigurationFiles.resolve(file.getPath())).containsExactly(file);
+    }
+
+    @Test
+    public void shouldExpandDirectoryToSortedYamlFiles() throws IOException {
+        final File b = createFile("b.yml");
+        final File a = createFile("sub/a.yaml");
+        final File c = createFile("c.yml");
+        createFile("notes.txt");
+
+        assertThat(ConfigurationFiles.resolve(folder.getRoot().getPath())).containsExactly(b, c, a);
+    }
+
+    @Test
+    public void shouldExpandGlob() throws IOException {
+        final File a = createFile("a-tests.yml");
+        final File b = createFile("nested/b-tests.yml");
+        createFile("other.yml");
+
+        assertThat(ConfigurationFiles.resolve(folder.getRoot().getPath() + "/*-tests.yml")).containsExactly(a);
+        assertThat(ConfigurationFiles.resolve(folder.getRoot().getPath() + "/**-tests.yml")).containsExactly(a, b);
+    }
+
+    @Test
+    public void shouldReturnEveryFileOnce() throws IOException {
+        final File a = createFile("a.yml");
+        final File b = createFile("b.yml");
+
+        assertThat(ConfigurationFiles.resolve(b.getPath(), folder.getRoot().getPath())).containsExactly(b, a);
+    }
+
+    @Test
+    public void shouldThrowExceptionIfNothingIsFound() throws IOException {
+        createFile("a.txt");
+
+        assertThatThrownBy(() -> ConfigurationFiles.resolve(folder.getRoot().getPath()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("No YAML files found");
+        assertThatThrownBy(() -> ConfigurationFiles.resolve(folder.getRoot().getPath() + "/*.yml"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private File createFile(final String name) throws IOException {
+        final File file = new File(folder.getRoot(), name);
+        file.getParentFile().mkdirs();
+        file.createNewFile();
+        return file;
+    }
+}
@@ -26,7 +26,11 @@ package de.neofonie.aiko;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadPoolExecutor;
 import org.apache.commons.io.IOUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,6 +66,80 @@ public class ContextTest {
         assertThat(expandedBody).isEqualTo(expectedExpandedBody);
     }
 
+    @Test
+    public void shouldExpandRequestEntityToContentIfFileIsReferenced() throws IOException {
+        final byte[] expectedContent = Files.readAllBytes(Paths.get(TestUtil.getTestUserDir(), "testdata.json"));
+
+        assertThat(context.expandRequestEntity("@testdata.json")).isEqualTo(expectedContent);
+    }
+
+    @Test
+    public void shouldExpandRequestEntityToFileIfFixtureCacheIsDisabled() throws IOException {
+        final Settings settings = new Settings();
+        settings.setFixtureCacheSize(0);
+        final Context uncachedContext = new Context(TestUtil.getTestUserDir(),
+                TestUtil.class.getResource("/tests.yml").getFile(), settings);
+
+        assertThat(uncachedContext.expandRequestEntity("@testdata.json")).isInstanceOf(File.class);
+    }
+
+    @Test
+    public void shouldLimitTestThreadsByParallelGroupsAndConnections() throws IOException {
+        final Settings settings = new Settings();
+        settings.setParallelism(2);
+        settings.setMaxConnectionsPerDomain(3);
+        try (Context boundedContext = new Context(TestUtil.getTestUserDir(),
+                TestUtil.class.getResource("/tests.yml").getFile(), settings)) {
+
+            assertThat(boundedContext.getTestExecutor()).isInstanceOf(ThreadPoolExecutor.class);
+            assertThat(((ThreadPoolExecutor) boundedContext.getTestExecutor()).getMaximumPoolSize()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void shouldReadReferencedFileOnce() throws IOException {
+        IOUtils.toString(context.expandBodyField("@testdata.json"));
+        IOUtils.toString(context.expandBodyField("@testdata.json"));
+        context.expandRequestEntity("@testdata.json");
+
+        assertThat(context.getFixtures().getMisses()).isEqualTo(1);
+        assertThat(context.getFixtures().getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldParseReferencedJsonOnce() throws IOException {
+        final Object document = context.getExpectedJson("@testdata.json");
+
+        assertThat(document).isNotNull();
+        assertThat(context.getExpectedJson("@testdata.json")).isSameAs(document);
+    }
+
+    @Test
+    public void shouldParseReferencedJsonOnEveryUseIfFixtureCacheIsDisabled() throws IOException {
+        final Settings settings = new Settings();
+        settings.setFixtureCacheSize(0);
+        final Context uncachedContext = new Context(TestUtil.getTestUserDir(),
+                TestUtil.class.getResource("/tests.yml").getFile(), settings);
+
+        assertThat(uncachedContext.getExpectedJson("@testdata.json"))
+                .isNotSameAs(uncachedContext.getExpectedJson("@testdata.json"));
+    }
+
+    @Test
+    public void shouldNotParseJsonIfEmptyFileIsReferenced() throws IOException {
+        assertThat(context.getExpectedJson("@")).isNull();
+    }
+
+    @Test
+    public void shouldExpandRequestEntityToBytesIfNoFileIsReferenced() throws IOException {
+        assertThat(context.expandRequestEntity("no file body")).isEqualTo("no file body".getBytes());
+    }
+
+    @Test
+    public void shouldThrowExceptionIfNoFileExistsForRequestEntity() throws IOException {
+        assertThatThrownBy(() -> context.expandRequestEntity("@testdata2.json")).isInstanceOf(IOException.class);
+    }
+
     @Test
     public void shouldThrowExceptionIfNoFileExistsForExpanding() throws IOException {
         assertThatThrownBy(() -> context.expandBodyField("@testdata2.json")).isInstanceOf(IOException.class);
@@ -24,6 +24,7 @@ SOFTWARE.
 package de.neofonie.aiko;
 
 import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.Load;
 import de.neofonie.aiko.yaml.RequestDefinition;
 import de.neofonie.aiko.yaml.ResponseDefinition;
 import de.neofonie.aiko.yaml.TestCase;
@@ -75,6 +76,35 @@ public class EngineTest {
         assertThat(result).isFalse();
     }
 
+    @Test
+    public void shouldReturnFalseWithInvalidLoad() throws Exception {
+        testCase.setLoad(new Load());
+        final boolean result = new Engine(TestUtil.getTestContext(), group, testCase).executeTest();
+
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    public void shouldReturnFalseWithLoadRateAboveOnePerNanosecond() throws Exception {
+        testCase.setLoad(new Load());
+        testCase.getLoad().setRate(Load.MAX_RATE + 1);
+        testCase.getLoad().setDuration(1);
+        final boolean result = new Engine(TestUtil.getTestContext(), group, testCase).executeTest();
+
+        assertThat(result).isFalse();
+    }
+
+    @Test
+    public void shouldCountFailedTest() throws Exception {
+        final Context context = TestUtil.getTestContext();
+        testCase.setResponse(null);
+        new Engine(context, group, testCase).executeTest();
+
+        assertThat(context.getStatistics().getTests()).isEqualTo(1);
+        assertThat(context.getStatistics().getFailedTests()).isEqualTo(1);
+        assertThat(context.getStatistics().getPassedTests()).isEqualTo(0);
+    }
+
     @Test
     public void shouldReturnFalseWithNoResponse() throws Exception {
         testCase.setResponse(null);
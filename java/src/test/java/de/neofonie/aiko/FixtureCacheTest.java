@@ -0,0 +1,140 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FixtureCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReturnSameContentFromCache() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File file = newFile("a.json", 10);
+
+        final byte[] content = cache.get(file.toPath());
+
+        assertThat(cache.get(file.toPath())).isSameAs(content).hasSize(10);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldUseResolvedPathAsKey() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File file = newFile("a.json", 10);
+
+        cache.get(file.toPath());
+        cache.get(Paths.get(file.getParent(), ".", "a.json"));
+
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheFileLargerThanLimit() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File file = newFile("large.bin", 101);
+
+        assertThat(cache.get(file.toPath())).isNull();
+        assertThat(cache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRemoveLeastRecentlyUsedFiles() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File first = newFile("first.json", 40);
+        final File second = newFile("second.json", 40);
+        final File third = newFile("third.json", 40);
+
+        cache.get(first.toPath());
+        cache.get(second.toPath());
+        cache.get(first.toPath());
+        cache.get(third.toPath());
+
+        assertThat(cache.getSize()).isEqualTo(80);
+        cache.get(first.toPath());
+        assertThat(cache.getHits()).isEqualTo(2);
+        cache.get(second.toPath());
+        assertThat(cache.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    public void shouldKeepParsedDocumentWhileFileIsCached() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File file = newFile("a.json", 10);
+        final AtomicInteger parsed = new AtomicInteger();
+
+        final Object document = cache.getDocument(file.toPath(), content -> parsed.incrementAndGet());
+
+        assertThat(cache.getDocument(file.toPath(), content -> parsed.incrementAndGet())).isSameAs(document);
+        assertThat(parsed.get()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(10 + 10 * FixtureCache.DOCUMENT_WEIGHT);
+    }
+
+    @Test
+    public void shouldRemoveParsedDocumentWithItsFile() throws IOException {
+        final FixtureCache cache = new FixtureCache(100);
+        final File first = newFile("first.json", 10);
+        final File second = newFile("second.json", 60);
+        final AtomicInteger parsed = new AtomicInteger();
+
+        cache.getDocument(first.toPath(), content -> parsed.incrementAndGet());
+        cache.get(second.toPath());
+
+        assertThat(cache.getSize()).isEqualTo(60);
+
+        cache.getDocument(first.toPath(), content -> parsed.incrementAndGet());
+
+        assertThat(parsed.get()).isEqualTo(2);
+        assertThat(cache.getSize()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void shouldThrowExceptionIfFileDoesNotExist() {
+        final FixtureCache cache = new FixtureCache(100);
+
+        assertThatThrownBy(() -> cache.get(Paths.get(temporaryFolder.getRoot().getPath(), "missing.json")))
+                .isInstanceOf(NoSuchFileException.class);
+    }
+
+    private File newFile(final String name, final int size) throws IOException {
+        final File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), new byte[size]);
+        return file;
+    }
+}
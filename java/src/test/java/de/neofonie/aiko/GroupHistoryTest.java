@@ -0,0 +1,113 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GroupHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final GroupHistory history = new GroupHistory();
+
+    @Test
+    public void shouldReadMissingFileAsEmptyHistory() throws IOException {
+        final GroupHistory read = GroupHistory.read(new File(folder.getRoot(), "history.json").toPath());
+
+        assertThat(read.getDuration("a")).isNull();
+    }
+
+    @Test
+    public void shouldReadWrittenHistory() throws IOException {
+        final Path file = folder.newFile().toPath();
+        history.record("a", 100);
+        history.record("b", 2000);
+        history.write(file);
+
+        final GroupHistory read = GroupHistory.read(file);
+
+        assertThat(read.getDuration("a")).isEqualTo(100);
+        assertThat(read.getDuration("b")).isEqualTo(2000);
+    }
+
+    @Test
+    public void shouldThrowExceptionForInvalidFile() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, "[]".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> GroupHistory.read(file)).isInstanceOf(IOException.class).hasMessageStartingWith("Invalid history");
+    }
+
+    @Test
+    public void shouldAverageDurations() {
+        history.record("a", 100);
+        history.record("a", 300);
+
+        assertThat(history.getDuration("a")).isEqualTo(200);
+    }
+
+    @Test
+    public void shouldStartLongestGroupsFirst() {
+        final Group a = newGroup("a");
+        final Group b = newGroup("b");
+        final Group c = newGroup("c");
+        final Group unknown = newGroup("unknown");
+        history.record("a", 100);
+        history.record("b", 5000);
+        history.record("c", 1000);
+
+        final List<Group> scheduled = history.schedule(Arrays.asList(a, unknown, b, c));
+
+        assertThat(scheduled).containsExactly(b, unknown, c, a);
+    }
+
+    @Test
+    public void shouldKeepOrderWithoutHistory() {
+        final List<Group> groups = Arrays.asList(newGroup("b"), newGroup("a"), newGroup("c"));
+
+        assertThat(history.schedule(groups)).containsExactlyElementsOf(groups);
+        assertThat(history.schedule(null)).isEmpty();
+    }
+
+    private static Group newGroup(final String name) {
+        final Group group = new Group();
+        group.setName(name);
+        return group;
+    }
+}
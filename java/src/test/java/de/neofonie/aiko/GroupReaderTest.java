@@ -0,0 +1,126 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.GroupReader;
+import de.neofonie.aiko.yaml.TestConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GroupReaderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadSameGroupsAsTestConfiguration() throws IOException {
+        final File file = new File(getClass().getResource("/tests.yml").getFile());
+        final List<Group> expected = TestConfiguration.getFromFile(file).getGroups();
+
+        final List<Group> groups = readGroups(file);
+
+        assertThat(groups).hasSameSizeAs(expected);
+        for (int i = 0; i < groups.size(); i++) {
+            assertThat(groups.get(i).toString()).isEqualTo(expected.get(i).toString());
+            assertThat(groups.get(i).getTests().toString()).isEqualTo(expected.get(i).getTests().toString());
+        }
+    }
+
+    @Test
+    public void shouldReadGroupsOneAfterAnother() throws IOException {
+        final File file = write("groups:\n"
+                + "  - name: first\n"
+                + "  - name: second\n"
+                + "    tests:\n"
+                + "    - name: test\n"
+                + "      response:\n"
+                + "        status: 200\n");
+
+        try (GroupReader reader = TestConfiguration.getGroupReader(file)) {
+            assertThat(reader.hasNext()).isTrue();
+            assertThat(reader.hasNext()).isTrue();
+            assertThat(reader.next().getName()).isEqualTo("first");
+            final Group second = reader.next();
+            assertThat(second.getName()).isEqualTo("second");
+            assertThat(second.getTests().get(0).getResponse().getStatus()).isEqualTo(200);
+            assertThat(reader.hasNext()).isFalse();
+            assertThatThrownBy(reader::next).isInstanceOf(NoSuchElementException.class);
+        }
+    }
+
+    @Test
+    public void shouldResolveAnchorsWithinGroup() throws IOException {
+        final File file = write("groups:\n"
+                + "  - name: &name anchored\n"
+                + "    domain: *name\n");
+
+        assertThat(readGroups(file).get(0).getDomain()).isEqualTo("anchored");
+    }
+
+    @Test
+    public void shouldReadNoGroupsFromEmptyConfiguration() throws IOException {
+        assertThat(readGroups(write(""))).isEmpty();
+        assertThat(readGroups(write("---\n"))).isEmpty();
+        assertThat(readGroups(write("groups:\n"))).isEmpty();
+        assertThat(readGroups(write("groups: []\n"))).isEmpty();
+    }
+
+    @Test
+    public void shouldRejectUnknownProperties() throws IOException {
+        final File file = write("groups:\n"
+                + "  - name: first\n"
+                + "    unknown: value\n");
+
+        assertThatThrownBy(() -> readGroups(file)).isInstanceOf(YAMLException.class);
+        assertThatThrownBy(() -> readGroups(write("unknown: value\n"))).isInstanceOf(YAMLException.class);
+    }
+
+    private File write(final String configuration) throws IOException {
+        final File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), configuration.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<Group> readGroups(final File file) throws IOException {
+        final List<Group> result = new ArrayList<>();
+        try (GroupReader reader = TestConfiguration.getGroupReader(file)) {
+            reader.forEachRemaining(result::add);
+        }
+        return result;
+    }
+}
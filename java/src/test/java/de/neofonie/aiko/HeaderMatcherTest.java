@@ -0,0 +1,106 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.sun.jersey.core.header.InBoundHeaders;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HeaderMatcherTest {
+
+    private final InBoundHeaders headers = new InBoundHeaders();
+
+    @Before
+    public void setUp() {
+        headers.put("Content-Type", ImmutableList.of("application/json; charset=utf-8"));
+        headers.put("Content-Length", ImmutableList.of("1024"));
+        headers.put("ETag", ImmutableList.of("\"a12bae32\""));
+        headers.put("Set-Cookie", ImmutableList.of("a=1", "session=abc"));
+    }
+
+    @Test
+    public void shouldMatchEqualValue() {
+        assertThat(HeaderMatcher.compile("Content-Length", 1024).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Content-Type", "application/json").findMismatch(headers))
+                .isEqualTo("Wrong header 'Content-Type': Expected 'application/json' - got 'application/json; charset=utf-8'.");
+    }
+
+    @Test
+    public void shouldMatchRegex() {
+        assertThat(HeaderMatcher.compile("ETag", ImmutableMap.of("regex", "\"[0-9a-f]+\"")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("ETag", ImmutableMap.of("regex", "[0-9a-f]+")).findMismatch(headers))
+                .isEqualTo("Wrong header 'ETag': Expected matching '[0-9a-f]+' - got '\"a12bae32\"'.");
+    }
+
+    @Test
+    public void shouldMatchPrefixAndContains() {
+        assertThat(HeaderMatcher.compile("Content-Type", ImmutableMap.of("prefix", "application/json")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Content-Type", ImmutableMap.of("contains", "charset")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Content-Type", ImmutableMap.of("prefix", "text/")).findMismatch(headers)).isNotNull();
+    }
+
+    @Test
+    public void shouldMatchRange() {
+        assertThat(HeaderMatcher.compile("Content-Length", ImmutableMap.of("range", "1..2048")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Content-Length", ImmutableMap.of("range", "1024..")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Content-Length", ImmutableMap.of("range", "..1000")).findMismatch(headers))
+                .isEqualTo("Wrong header 'Content-Length': Expected in range ..1000 - got '1024'.");
+        assertThat(HeaderMatcher.compile("ETag", ImmutableMap.of("range", "1..")).findMismatch(headers)).isNotNull();
+    }
+
+    @Test
+    public void shouldMatchHeaderNameCaseInsensitive() {
+        assertThat(HeaderMatcher.compile("content-type", ImmutableMap.of("contains", "json")).findMismatch(headers)).isNull();
+    }
+
+    @Test
+    public void shouldMatchAnyValue() {
+        assertThat(HeaderMatcher.compile("Set-Cookie", ImmutableMap.of("prefix", "session=")).findMismatch(headers)).isNull();
+        assertThat(HeaderMatcher.compile("Set-Cookie", "b=2").findMismatch(headers))
+                .isEqualTo("Wrong header 'Set-Cookie': Expected 'b=2' - got [a=1, session=abc].");
+    }
+
+    @Test
+    public void shouldFailForMissingHeader() {
+        assertThat(HeaderMatcher.compile("Date", ImmutableMap.of("regex", ".*")).findMismatch(headers))
+                .isEqualTo("Wrong header 'Date': Expected matching '.*' - got none.");
+    }
+
+    @Test
+    public void shouldRejectInvalidMatchers() {
+        assertThatThrownBy(() -> HeaderMatcher.compile("ETag", ImmutableMap.of("suffix", "x")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown matcher 'suffix'");
+        assertThatThrownBy(() -> HeaderMatcher.compile("ETag", ImmutableMap.of("regex", "[a-")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid regex");
+        assertThatThrownBy(() -> HeaderMatcher.compile("Content-Length", ImmutableMap.of("range", "1-2")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Invalid range");
+        assertThatThrownBy(() -> HeaderMatcher.compile("ETag", ImmutableMap.of("prefix", "a", "contains", "b")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("exactly one matcher");
+    }
+}
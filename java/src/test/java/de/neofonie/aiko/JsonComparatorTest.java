@@ -0,0 +1,148 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonComparatorTest {
+
+    @Test
+    public void shouldMatchObjectWithFieldsInOtherOrder() throws IOException {
+        assertThat(findMismatch("{\"a\": 1, \"b\": \"x\"}", "{\"b\": \"x\", \"a\": 1}")).isNull();
+    }
+
+    @Test
+    public void shouldMatchArrayInOtherOrder() throws IOException {
+        assertThat(findMismatch("[{\"id\": 1}, {\"id\": 2}, 3]", "[3, {\"id\": 2}, {\"id\": 1}]")).isNull();
+    }
+
+    @Test
+    public void shouldMatchNumbersWithSameValue() throws IOException {
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1.0}")).isNull();
+    }
+
+    @Test
+    public void shouldReportPathOfDifferentValue() throws IOException {
+        assertThat(findMismatch("{\"user\": {\"names\": [\"a\", \"b\"]}}", "{\"user\": {\"names\": [\"a\", \"c\"]}}"))
+                .isEqualTo("$.user.names[1]: Expected 'b' - got 'c'");
+    }
+
+    @Test
+    public void shouldReportUnexpectedField() throws IOException {
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1, \"b\": 2}")).isEqualTo("$.b: Unexpected field");
+    }
+
+    @Test
+    public void shouldReportMissingField() throws IOException {
+        assertThat(findMismatch("{\"a\": 1, \"b\": 2}", "{\"a\": 1}")).isEqualTo("$.b: Expected field is missing");
+    }
+
+    @Test
+    public void shouldReportDifferentType() throws IOException {
+        assertThat(findMismatch("{\"a\": \"1\"}", "{\"a\": {\"b\": 1}}")).isEqualTo("$.a: Expected '1' - got {...}");
+    }
+
+    @Test
+    public void shouldReportMissingElements() throws IOException {
+        assertThat(findMismatch("[1, 2, 3]", "[1, 2]")).isEqualTo("$: Expected 3 elements - got 2");
+    }
+
+    @Test
+    public void shouldReportUnexpectedElements() throws IOException {
+        assertThat(findMismatch("[1, 2]", "[1, 2, 2]")).isEqualTo("$[2]: Unexpected element 2");
+    }
+
+    @Test
+    public void shouldCompareNullValues() throws IOException {
+        assertThat(findMismatch("{\"a\": null}", "{\"a\": null}")).isNull();
+        assertThat(findMismatch("{\"a\": null}", "{\"a\": false}")).isEqualTo("$.a: Expected null - got false");
+    }
+
+    @Test
+    public void shouldReportContentAfterDocument() throws IOException {
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1}{\"b\": 2}")).isEqualTo("$: Unexpected content after the JSON document");
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1} garbage")).startsWith("Invalid JSON: ");
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1}\n")).isNull();
+    }
+
+    @Test
+    public void shouldMatchEmptyBodies() throws IOException {
+        assertThat(findMismatch("", "")).isNull();
+        assertThat(findMismatch("", "{}")).isEqualTo("$: Expected an empty body - got JSON content");
+        assertThat(findMismatch("{}", "")).isEqualTo("$: Expected JSON content - got an empty body");
+    }
+
+    @Test
+    public void shouldReuseParsedDocument() throws IOException {
+        final Object expected = JsonComparator.parse(toStream("{\"a\": [1, 2], \"b\": {\"c\": \"d\"}}"));
+
+        assertThat(JsonComparator.findMismatch(expected, toStream("{\"b\": {\"c\": \"d\"}, \"a\": [2, 1]}"))).isNull();
+        assertThat(JsonComparator.findMismatch(expected, toStream("{\"a\": [1, 2], \"b\": {\"c\": \"e\"}}")))
+                .isEqualTo("$.b.c: Expected 'd' - got 'e'");
+        assertThat(JsonComparator.findMismatch(expected, toStream("{\"a\": [1, 2], \"b\": {\"c\": \"d\"}}"))).isNull();
+    }
+
+    @Test
+    public void shouldReportInvalidBody() throws IOException {
+        assertThat(findMismatch("{\"a\": 1}", "{\"a\": 1")).startsWith("Invalid JSON:");
+    }
+
+    @Test
+    public void shouldThrowExceptionForInvalidExpectedDocument() {
+        assertThatThrownBy(() -> JsonComparator.parse(toStream("{\"a\": }"))).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void shouldStopReadingAtFirstMismatch() throws IOException {
+        final byte[] element = ", {\"id\": 1}".getBytes(StandardCharsets.UTF_8);
+        final InputStream endless = new SequenceInputStream(toStream("[{\"id\": 2}"), new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                return element[(int) (position++ % element.length)];
+            }
+        });
+
+        assertThat(JsonComparator.findMismatch(JsonComparator.parse(toStream("[{\"id\": 1}]")), endless))
+                .isEqualTo("$[0].id: Expected 1 - got 2");
+    }
+
+    private static String findMismatch(final String expected, final String actual) throws IOException {
+        return JsonComparator.findMismatch(JsonComparator.parse(toStream(expected)), toStream(actual));
+    }
+
+    private static InputStream toStream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JsonPathMatcherTest {
+
+    private static final String BODY = "{\"total\": 3, \"items\": [{\"id\": 1, \"name\": \"a\"}, {\"id\": 2, \"name\": \"b\", "
+            + "\"tags\": [\"x\", \"y\"]}, {\"id\": 3, \"name\": \"c\"}], \"first name\": \"Leanne\", \"active\": true, \"next\": null}";
+
+    @Test
+    public void shouldMatchSelectedValues() throws IOException {
+        final Map<String, Object> paths = ImmutableMap.<String, Object>builder()
+                .put("$.total", 3)
+                .put("$.items[1].name", "b")
+                .put("$.items[2]", ImmutableMap.of("name", "c", "id", 3.0))
+                .put("$['first name']", "Leanne")
+                .put("$.active", true)
+                .build();
+
+        assertThat(findMismatches(paths, BODY)).isEmpty();
+    }
+
+    @Test
+    public void shouldMatchNull() throws IOException {
+        assertThat(findMismatches(Collections.singletonMap("$.next", null), BODY)).isEmpty();
+    }
+
+    @Test
+    public void shouldMatchValueAndValuesInsideOfIt() throws IOException {
+        final Map<String, Object> paths = ImmutableMap.of(
+                "$.items[1].tags", ImmutableList.of("y", "x"),
+                "$.items[1].tags[0]", "x");
+
+        assertThat(findMismatches(paths, BODY)).isEmpty();
+    }
+
+    @Test
+    public void shouldReportAllDifferences() throws IOException {
+        final Map<String, Object> paths = ImmutableMap.of(
+                "$.total", 4,
+                "$.items[0].name", "a",
+                "$.items[2].name", "z");
+
+        assertThat(findMismatches(paths, BODY)).containsExactly(
+                "$.total: Expected 4 - got 3",
+                "$.items[2].name: Expected 'z' - got 'c'");
+    }
+
+    @Test
+    public void shouldContinueAfterDifferenceInsideOfValue() throws IOException {
+        final Map<String, Object> paths = ImmutableMap.of(
+                "$.items[1]", ImmutableMap.of("id", 5),
+                "$.items[2].id", 3);
+
+        assertThat(findMismatches(paths, BODY)).containsExactly("$.items[1].id: Expected 5 - got 2");
+    }
+
+    @Test
+    public void shouldReportMissingPaths() throws IOException {
+        final Map<String, Object> paths = ImmutableMap.of(
+                "$.items[5].name", "a",
+                "$.total.value", 3,
+                "$.missing", "a");
+
+        assertThat(findMismatches(paths, BODY)).containsExactly(
+                "$.items[5].name: Expected path is missing",
+                "$.total.value: Expected path is missing",
+                "$.missing: Expected path is missing");
+    }
+
+    @Test
+    public void shouldReportMissingPathsForEmptyBody() throws IOException {
+        assertThat(findMismatches(ImmutableMap.of("$.total", 3), "")).containsExactly("$.total: Expected path is missing");
+    }
+
+    @Test
+    public void shouldReportInvalidBody() throws IOException {
+        assertThat(findMismatches(ImmutableMap.of("$.total", 3), "{\"items\": [}")).hasSize(1)
+                .allMatch(mismatch -> mismatch.startsWith("Invalid JSON:"));
+    }
+
+    @Test
+    public void shouldStopReadingWhenAllPathsAreFound() throws IOException {
+        final byte[] element = ", {\"id\": 1}".getBytes(StandardCharsets.UTF_8);
+        final InputStream endless = new SequenceInputStream(toStream("{\"total\": 3, \"items\": [{\"id\": 1}"), new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                return element[(int) (position++ % element.length)];
+            }
+        });
+
+        final JsonPathMatcher matcher = new JsonPathMatcher(ImmutableMap.of("$.total", 3, "$.items[1000].id", 1));
+
+        assertThat(matcher.findMismatches(endless)).isEmpty();
+    }
+
+    @Test
+    public void shouldParsePaths() {
+        assertThat(JsonPathMatcher.parsePath("$")).isEmpty();
+        assertThat(JsonPathMatcher.parsePath("$.items[12].name")).containsExactly("items", 12, "name");
+        assertThat(JsonPathMatcher.parsePath("$['first name'][\"a.b\"]")).containsExactly("first name", "a.b");
+    }
+
+    @Test
+    public void shouldRejectInvalidPaths() {
+        for (String path : ImmutableList.of("items", "$.", "$..name", "$.items[*]", "$.items[a]", "$['name]", "$.items[1")) {
+            assertThatThrownBy(() -> JsonPathMatcher.parsePath(path))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining(path);
+        }
+    }
+
+    @Test
+    public void shouldRejectPathsSelectingTheSameValue() {
+        assertThatThrownBy(() -> new JsonPathMatcher(ImmutableMap.of("$.a", 1, "$['a']", 2)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("JSON path '$['a']' selects the same value as '$.a'.");
+    }
+
+    private static List<String> findMismatches(final Map<String, Object> paths, final String body) throws IOException {
+        return new JsonPathMatcher(paths).findMismatches(toStream(body));
+    }
+
+    private static InputStream toStream(final String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.TestCase;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyStatisticsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final LatencyStatistics latencies = new LatencyStatistics();
+    private Group group;
+    private TestCase testCase;
+
+    @Before
+    public void setUp() {
+        testCase = new TestCase();
+        testCase.setName("read user");
+        group = new Group();
+        group.setName("user tests");
+        group.setTests(Collections.singletonList(testCase));
+    }
+
+    @Test
+    public void shouldRecordLatencyPerTestCaseGroupAndRun() {
+        latencies.record(group, testCase, TimeUnit.MILLISECONDS.toNanos(10));
+        latencies.record(group, testCase, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(latencies.getRun().getTotalCount()).isEqualTo(2);
+        assertThat(latencies.getGroup(group).getTotalCount()).isEqualTo(2);
+        assertThat(latencies.getTestCase(testCase).getMaxValue()).isBetween(19_900L, 20_100L);
+    }
+
+    @Test
+    public void shouldReturnNullForTestCaseWithoutRequest() {
+        assertThat(latencies.getTestCase(testCase)).isNull();
+    }
+
+    @Test
+    public void shouldWriteReport() throws Exception {
+        final File report = temporaryFolder.newFile("latencies.json");
+        latencies.record(group, testCase, TimeUnit.MILLISECONDS.toNanos(10));
+
+        latencies.writeReport(report.toPath());
+
+        final JSONObject json = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8));
+        assertThat(json.getJSONObject("run").getLong("count")).isEqualTo(1);
+        assertThat(json.getJSONArray("groups").getJSONObject(0).getString("name")).isEqualTo("user tests");
+        assertThat(json.getJSONArray("groups").getJSONObject(0).getJSONArray("tests").getJSONObject(0).getDouble("p99")).isBetween(9.9, 10.1);
+    }
+
+    @Test
+    public void shouldKeepPercentilesOfFinishedGroup() throws Exception {
+        final File report = temporaryFolder.newFile("latencies.json");
+        final Group skippedGroup = new Group();
+        skippedGroup.setName("skipped tests");
+        latencies.addGroup(group);
+        latencies.addGroup(skippedGroup);
+        latencies.record(group, testCase, TimeUnit.MILLISECONDS.toNanos(10));
+
+        latencies.finishGroup(group);
+
+        assertThat(latencies.getGroup(group)).isNull();
+        assertThat(latencies.getTestCase(testCase)).isNull();
+        latencies.writeReport(report.toPath());
+        final JSONObject json = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8));
+        assertThat(json.getJSONArray("groups").length()).isEqualTo(2);
+        assertThat(json.getJSONArray("groups").getJSONObject(0).getLong("count")).isEqualTo(1);
+        assertThat(json.getJSONArray("groups").getJSONObject(0).getJSONArray("tests").getJSONObject(0).getDouble("p99")).isBetween(9.9, 10.1);
+        assertThat(json.getJSONArray("groups").getJSONObject(1).getString("name")).isEqualTo("skipped tests");
+        assertThat(json.getJSONArray("groups").getJSONObject(1).getLong("count")).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldWriteCorrectedLatenciesOfLoadTests() throws Exception {
+        final File report = temporaryFolder.newFile("latencies.json");
+        latencies.record(group, testCase, TimeUnit.MILLISECONDS.toNanos(10));
+        latencies.recordCorrected(testCase, TimeUnit.MILLISECONDS.toNanos(30));
+
+        latencies.writeReport(report.toPath());
+
+        final JSONObject json = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8));
+        final JSONObject testReport = json.getJSONArray("groups").getJSONObject(0).getJSONArray("tests").getJSONObject(0);
+        assertThat(testReport.getDouble("max")).isBetween(9.9, 10.1);
+        assertThat(testReport.getJSONObject("corrected").getDouble("max")).isBetween(29.9, 30.1);
+    }
+}
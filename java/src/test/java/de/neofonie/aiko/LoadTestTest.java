@@ -0,0 +1,172 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.Load;
+import de.neofonie.aiko.yaml.RequestDefinition;
+import de.neofonie.aiko.yaml.ResponseDefinition;
+import de.neofonie.aiko.yaml.TestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class LoadTestTest {
+
+    @ClassRule
+    public static WireMockClassRule wireMockRule = new WireMockClassRule(8111);
+
+    @Rule
+    public WireMockClassRule instanceRule = wireMockRule;
+
+    private Context context;
+    private Group group;
+    private TestCase testCase;
+
+    @Before
+    public void setUp() throws IOException {
+        instanceRule.stubFor(get(urlEqualTo("/ok")).willReturn(aResponse().withStatus(200).withBody("{\"id\": 1}")));
+        instanceRule.stubFor(get(urlEqualTo("/error")).willReturn(aResponse().withStatus(500)));
+
+        context = TestUtil.getTestContext();
+        group = new Group();
+        group.setDomain("http://localhost:8111");
+
+        testCase = new TestCase();
+        testCase.setRequest(new RequestDefinition());
+        testCase.getRequest().setMethod("GET");
+        testCase.getRequest().setUri("/ok");
+        testCase.setResponse(new ResponseDefinition());
+        testCase.getResponse().setStatus(200);
+        testCase.setLoad(new Load());
+        testCase.getLoad().setRate(50);
+        testCase.getLoad().setDuration(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        context.close();
+        instanceRule.resetMappings();
+        instanceRule.resetRequests();
+    }
+
+    @Test
+    public void shouldSendRequestsWithRate() throws IOException {
+        final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+        assertThat(loadTest.run()).isTrue();
+        assertThat(loadTest.getCompletedRequests()).isEqualTo(50);
+        assertThat(loadTest.getErrorCount()).isEqualTo(0);
+        assertThat(loadTest.getLatencies().getTotalCount()).isEqualTo(50);
+        assertThat(loadTest.getThroughput()).isBetween(30.0, 60.0);
+        assertThat(context.getStatistics().getRequests()).isEqualTo(50);
+        instanceRule.verify(50, getRequestedFor(urlEqualTo("/ok")));
+    }
+
+    @Test
+    public void shouldCountErrorsByReason() throws IOException {
+        testCase.getRequest().setUri("/error");
+        final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+        assertThat(loadTest.run()).isFalse();
+        assertThat(loadTest.getErrors()).containsExactly(entry("status 500", 50L));
+        assertThat(loadTest.getErrorRate()).isEqualTo(100.0);
+    }
+
+    @Test
+    public void shouldPassWithinMaxErrorRate() throws IOException {
+        testCase.getRequest().setUri("/error");
+        testCase.getLoad().setMaxErrorRate(100);
+
+        assertThat(new LoadTest(context, group, testCase).run()).isTrue();
+    }
+
+    @Test
+    public void shouldCountMismatchOfValidatedResponses() throws IOException {
+        testCase.getResponse().setBody("{\"id\": 2}");
+        testCase.getLoad().setValidateEvery(10);
+        final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+        assertThat(loadTest.run()).isFalse();
+        assertThat(loadTest.getErrors()).containsExactly(entry("response did not match", 5L));
+    }
+
+    @Test
+    public void shouldLimitRequestsInFlight() throws IOException {
+        instanceRule.stubFor(get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(200)));
+        testCase.getRequest().setUri("/slow");
+        testCase.getLoad().setConcurrency(1);
+        testCase.getLoad().setRate(10);
+        final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+        final long start = System.currentTimeMillis();
+        assertThat(loadTest.run()).isTrue();
+
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(2000);
+        assertThat(loadTest.getCompletedRequests()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldIncludeWaitingTimeInCorrectedLatencies() throws IOException {
+        instanceRule.stubFor(get(urlEqualTo("/slow")).willReturn(aResponse().withStatus(200).withFixedDelay(200)));
+        testCase.getRequest().setUri("/slow");
+        testCase.getLoad().setConcurrency(1);
+        testCase.getLoad().setRate(10);
+        final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+        loadTest.run();
+
+        assertThat(loadTest.getLatencies().getMaxValue()).isLessThan(700_000);
+        assertThat(loadTest.getCorrectedLatencies().getMaxValue()).isGreaterThan(900_000);
+        assertThat(loadTest.getCorrectedLatencies().getTotalCount()).isEqualTo(10);
+        assertThat(context.getLatencies().getCorrectedTestCase(testCase).getTotalCount()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldRunAsync() throws Exception {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final LoadTest loadTest = new LoadTest(context, group, testCase);
+
+            assertThat(loadTest.runAsync(executor).get()).isTrue();
+            assertThat(loadTest.getCompletedRequests()).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
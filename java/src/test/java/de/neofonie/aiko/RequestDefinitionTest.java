@@ -26,8 +26,14 @@ package de.neofonie.aiko;
 import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import com.google.common.collect.ImmutableMap;
 import com.sun.jersey.api.client.ClientHandlerException;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
 import com.sun.jersey.api.client.ClientResponse;
 import de.neofonie.aiko.yaml.RequestDefinition;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.nio.entity.NFileEntity;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -35,6 +41,13 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
@@ -123,6 +136,25 @@ public class RequestDefinitionTest {
         instanceRule.verify(1, getRequestedFor(urlEqualTo("/my/uri")));
     }
 
+    @Test
+    public void shouldPerformAsyncGetRequest() throws Exception {
+        requestDefinition.setMethod("GET");
+        ClientResponse response = requestDefinition.performRequestAsync("http://localhost:8111", context).get();
+
+        assertThat(response.getStatus()).isEqualTo(ClientResponse.Status.OK.getStatusCode());
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/my/uri")));
+    }
+
+    @Test
+    public void shouldPerformAsyncPostRequestWithBody() throws Exception {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("@testdata.json");
+        requestDefinition.setHeaders(ImmutableMap.of("Content-Type", "application/json"));
+        requestDefinition.performRequestAsync("http://localhost:8111", context).get();
+
+        instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri")).withHeader("Content-Length", equalTo("94")));
+    }
+
     @Test
     public void shouldPerformGetRequestWithHeader() throws IOException {
         requestDefinition.setMethod("GET");
@@ -148,6 +180,65 @@ public class RequestDefinitionTest {
         assertThatThrownBy(() -> requestDefinition.performRequest("http://localhoster:8111", context)).isInstanceOf(ClientHandlerException.class);
     }
 
+    @Test
+    public void shouldAbortBlockingRequestWhenCancelled() throws IOException {
+        instanceRule.stubFor(get(urlEqualTo("/stalled")).willReturn(aResponse().withFixedDelay(5000)));
+        requestDefinition.setMethod("GET");
+        requestDefinition.setUri("/stalled");
+        final CompletableFuture<Void> cancel = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            context.getCancellation().cancel();
+        });
+
+        final long startTimeMillis = System.currentTimeMillis();
+        assertThatThrownBy(() -> context.abortOnCancel(() -> requestDefinition.performRequest("http://localhost:8111", context)))
+                .isInstanceOf(ClientHandlerException.class);
+        assertThat(System.currentTimeMillis() - startTimeMillis).isLessThan(2000);
+        cancel.join();
+    }
+
+    @Test
+    public void shouldSendBlockingRequestsAfterCancellation() throws IOException {
+        requestDefinition.setMethod("GET");
+        context.getCancellation().cancel();
+
+        final ClientResponse response = requestDefinition.performRequest("http://localhost:8111", context);
+
+        assertThat(response.getStatus()).isEqualTo(ClientResponse.Status.OK.getStatusCode());
+    }
+
+    @Test
+    public void shouldRecordStartOfBlockingRequest() throws IOException {
+        instanceRule.stubFor(get(urlEqualTo("/delayed")).willReturn(aResponse().withFixedDelay(200)));
+        requestDefinition.setMethod("GET");
+        requestDefinition.setUri("/delayed");
+        final RequestTiming timing = new RequestTiming();
+
+        requestDefinition.performRequest("http://localhost:8111", context, timing);
+        timing.firstByteReceived();
+
+        assertThat(timing.getTimeToFirstByteMillis()).isBetween(200L, 2000L);
+    }
+
+    @Test
+    public void shouldRecordStartOfUncachedFileUpload() throws IOException {
+        instanceRule.stubFor(post(urlEqualTo("/delayed")).willReturn(aResponse().withFixedDelay(200)));
+        final Context uncachedContext = getUncachedContext();
+        requestDefinition.setMethod("POST");
+        requestDefinition.setUri("/delayed");
+        requestDefinition.setBody("@testdata.jpg");
+        final RequestTiming timing = new RequestTiming();
+
+        requestDefinition.performRequest("http://localhost:8111", uncachedContext, timing);
+        timing.firstByteReceived();
+
+        assertThat(timing.getTimeToFirstByteMillis()).isBetween(200L, 2000L);
+    }
+
     @Test
     public void shouldPerformPostRequest() throws IOException {
         requestDefinition.setMethod("POST");
@@ -156,6 +247,153 @@ public class RequestDefinitionTest {
         instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri")));
     }
 
+    @Test
+    public void shouldSendComputedContentLength() throws IOException {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("{\"id\": 1}");
+        requestDefinition.setHeaders(ImmutableMap.of("Content-Length", "100"));
+        requestDefinition.performRequest("http://localhost:8111", context);
+
+        instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri")).withHeader("Content-Length", equalTo("9")));
+    }
+
+    @Test
+    public void shouldStreamUncachedFileWithComputedContentLength() throws IOException {
+        final Context uncachedContext = getUncachedContext();
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("@testdata.jpg");
+        requestDefinition.setHeaders(ImmutableMap.of("Content-Type", "image/jpeg"));
+        final ClientResponse response = requestDefinition.performRequest("http://localhost:8111", uncachedContext);
+
+        assertThat(response.getStatus()).isEqualTo(ClientResponse.Status.OK.getStatusCode());
+        instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri")).withHeader("Content-Length", equalTo("52361")));
+    }
+
+    @Test
+    public void shouldAbortUncachedFileUploadWhenCancelled() throws IOException {
+        instanceRule.stubFor(post(urlEqualTo("/stalled")).willReturn(aResponse().withFixedDelay(5000)));
+        final Context uncachedContext = getUncachedContext();
+        requestDefinition.setMethod("POST");
+        requestDefinition.setUri("/stalled");
+        requestDefinition.setBody("@testdata.jpg");
+        final CompletableFuture<Void> cancel = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            uncachedContext.getCancellation().cancel();
+        });
+
+        final long startTimeMillis = System.currentTimeMillis();
+        assertThatThrownBy(() -> uncachedContext.abortOnCancel(() -> requestDefinition.performRequest("http://localhost:8111", uncachedContext)))
+                .isInstanceOf(ClientHandlerException.class);
+        assertThat(System.currentTimeMillis() - startTimeMillis).isLessThan(2000);
+        cancel.join();
+    }
+
+    @Test
+    public void shouldThrowExceptionWithWrongDomainForUncachedFile() throws IOException {
+        final Context uncachedContext = getUncachedContext();
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("@testdata.json");
+
+        assertThatThrownBy(() -> requestDefinition.performRequest("http://localhoster:8111", uncachedContext))
+                .isInstanceOf(ClientHandlerException.class);
+    }
+
+    @Test
+    public void shouldSendChunkedBody() throws IOException {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("{\"id\": 1}");
+        requestDefinition.setChunked(true);
+        requestDefinition.performRequest("http://localhost:8111", context);
+
+        instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri"))
+                .withHeader("Transfer-Encoding", equalTo("chunked"))
+                .withRequestBody(equalTo("{\"id\": 1}")));
+    }
+
+    @Test
+    public void shouldSendChunkedFileAsync() throws Exception {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("@testdata.json");
+        requestDefinition.setChunked(true);
+        requestDefinition.performRequestAsync("http://localhost:8111", getUncachedContext()).get();
+
+        instanceRule.verify(1, postRequestedFor(urlEqualTo("/my/uri")).withHeader("Transfer-Encoding", equalTo("chunked")));
+    }
+
+    @Test
+    public void shouldReceiveLargeBodyAsync() throws Exception {
+        final byte[] body = new byte[1024 * 1024];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) i;
+        }
+        instanceRule.stubFor(get(urlEqualTo("/large")).willReturn(aResponse().withBody(body)));
+        requestDefinition.setMethod("GET");
+        requestDefinition.setUri("/large");
+        final ClientResponse response = requestDefinition.performRequestAsync("http://localhost:8111", context).get();
+
+        try (InputStream entity = response.getEntityInputStream()) {
+            assertThat(IOUtils.toByteArray(entity)).isEqualTo(body);
+        }
+    }
+
+    @Test
+    public void shouldCreateNewEntityForEveryPreparedRequest() throws IOException {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("{\"id\": 1}");
+        final Supplier<HttpUriRequest> prepared = requestDefinition.prepareRequest("http://localhost:8111", context);
+
+        final HttpEntity first = ((HttpEntityEnclosingRequest) prepared.get()).getEntity();
+        final HttpEntity second = ((HttpEntityEnclosingRequest) prepared.get()).getEntity();
+        assertThat(first).isNotNull();
+        assertThat(first).isNotSameAs(second);
+    }
+
+    @Test
+    public void shouldCreateNewFileEntityForEveryPreparedRequest() throws IOException {
+        requestDefinition.setMethod("POST");
+        requestDefinition.setBody("@testdata.jpg");
+        final Supplier<HttpUriRequest> prepared = requestDefinition.prepareRequest("http://localhost:8111", getUncachedContext());
+
+        final HttpEntity first = ((HttpEntityEnclosingRequest) prepared.get()).getEntity();
+        final HttpEntity second = ((HttpEntityEnclosingRequest) prepared.get()).getEntity();
+        assertThat(first).isInstanceOf(NFileEntity.class);
+        assertThat(first).isNotSameAs(second);
+    }
+
+    @Test
+    public void shouldSendUncachedFileCompletelyWithEveryPreparedRequest() throws Exception {
+        instanceRule.stubFor(post(urlEqualTo("/upload")).willReturn(aResponse()));
+        final Context uncachedContext = getUncachedContext();
+        requestDefinition.setMethod("POST");
+        requestDefinition.setUri("/upload");
+        requestDefinition.setBody("@testdata.jpg");
+        final Supplier<HttpUriRequest> prepared = requestDefinition.prepareRequest("http://localhost:8111", uncachedContext);
+
+        final List<CompletableFuture<ClientResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            responses.add(requestDefinition.performRequestAsync(prepared.get(), uncachedContext, new RequestTiming()));
+        }
+        for (CompletableFuture<ClientResponse> response : responses) {
+            assertThat(response.get().getStatus()).isEqualTo(ClientResponse.Status.OK.getStatusCode());
+        }
+
+        final byte[] file = Files.readAllBytes(Paths.get(TestUtil.getTestUserDir(), "testdata.jpg"));
+        for (LoggedRequest request : instanceRule.findAll(postRequestedFor(urlEqualTo("/upload")))) {
+            assertThat(request.getBody()).isEqualTo(file);
+        }
+    }
+
+    private Context getUncachedContext() throws IOException {
+        final Settings settings = new Settings();
+        settings.setFixtureCacheSize(0);
+
+        return new Context(TestUtil.getTestUserDir(), TestUtil.class.getResource("/tests.yml").getFile(), settings);
+    }
+
     @Test
     public void shouldPerformPutRequest() throws IOException {
         requestDefinition.setMethod("PUT");
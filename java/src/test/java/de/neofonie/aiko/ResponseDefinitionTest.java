@@ -35,6 +35,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class ResponseDefinitionTest {
 
@@ -116,6 +117,124 @@ public class ResponseDefinitionTest {
         assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isTrue();
     }
 
+    @Test
+    public void shouldMatchBodyDigestsAndLength() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBody(null);
+        responseDefinition.setBodySha256("B34D38CC79479D8CE2DB6131AD3A5C71751622A44C369551136E79D752BA20C4");
+        responseDefinition.setBodyMd5("9c7d8797f091358e2c2f526f1d3a8f72");
+        responseDefinition.setBodyLength(31L);
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isFalse();
+    }
+
+    @Test
+    public void shouldMatchBodyAndBodyDigest() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBodySha256("b34d38cc79479d8ce2db6131ad3a5c71751622a44c369551136e79d752ba20c4");
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isFalse();
+    }
+
+    @Test
+    public void shouldFailWithDifferentBodySha256() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBodySha256("0000000000000000000000000000000000000000000000000000000000000000");
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isTrue();
+    }
+
+    @Test
+    public void shouldFailWithDifferentBodyMd5() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBodyMd5("00000000000000000000000000000000");
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isTrue();
+    }
+
+    @Test
+    public void shouldFailWithDifferentBodyLength() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBodyLength(30L);
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isTrue();
+    }
+
+    @Test
+    public void shouldMatchBodyPaths() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBody(null);
+        responseDefinition.setBodyPaths(ImmutableMap.of("$.version", "1.0"));
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isFalse();
+    }
+
+    @Test
+    public void shouldFailWithDifferentBodyPath() throws IOException {
+        final ClientResponse clientResponse = getOkJsonResponse();
+
+        responseDefinition.setBody(null);
+        responseDefinition.setBodyPaths(ImmutableMap.of("$.name", "aiko", "$.version", "2.0"));
+
+        assertThat(responseDefinition.doesNotMatchResponse(clientResponse, context)).isTrue();
+    }
+
+    @Test
+    public void shouldRejectInvalidBodyPathWhenSet() {
+        assertThatThrownBy(() -> responseDefinition.setBodyPaths(ImmutableMap.of("name", "aiko")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid JSON path 'name'");
+    }
+
+    @Test
+    public void shouldBeInvalidWithBodyAndBodyPaths() {
+        responseDefinition.setBodyPaths(ImmutableMap.of("$.name", "aiko"));
+
+        assertThat(responseDefinition.isInvalid()).isTrue();
+    }
+
+    @Test
+    public void shouldNotBeTooSlowWithoutMaximum() throws InterruptedException {
+        assertThat(responseDefinition.isTooSlow(getTiming(5))).isFalse();
+    }
+
+    @Test
+    public void shouldBeTooSlowAboveMaxLatency() throws InterruptedException {
+        responseDefinition.setMaxLatencyMs(1);
+
+        assertThat(responseDefinition.isTooSlow(getTiming(5))).isTrue();
+    }
+
+    @Test
+    public void shouldNotBeTooSlowBelowMaxLatency() throws InterruptedException {
+        responseDefinition.setMaxLatencyMs(10_000);
+        responseDefinition.setMaxTimeToFirstByteMs(10_000);
+
+        assertThat(responseDefinition.isTooSlow(getTiming(5))).isFalse();
+    }
+
+    @Test
+    public void shouldBeTooSlowAboveMaxTimeToFirstByte() throws InterruptedException {
+        responseDefinition.setMaxTimeToFirstByteMs(1);
+
+        assertThat(responseDefinition.isTooSlow(getTiming(5))).isTrue();
+    }
+
+    private RequestTiming getTiming(final long durationMillis) throws InterruptedException {
+        final RequestTiming timing = new RequestTiming();
+        timing.start();
+        Thread.sleep(durationMillis);
+        timing.completed();
+
+        return timing;
+    }
+
     @Test
     public void shouldFailWithDifferentStatus() throws IOException {
         final ClientResponse clientResponse = getOkJsonResponse();
@@ -23,8 +23,14 @@ SOFTWARE.
  */
 package de.neofonie.aiko;
 
+import org.apache.http.client.utils.DateUtils;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -90,4 +96,160 @@ public class RetryStrategyTest {
 
         assertThat(retryStrategy.getRetryDelay()).isEqualTo(retryDelay);
     }
+
+    @Test
+    public void shouldIncreaseDelayLinear() {
+        final RetryStrategy retryStrategy = new RetryStrategy(3, 100, Backoff.LINEAR, 0, null);
+
+        assertThat(getDelays(retryStrategy, 3)).containsExactly(100L, 200L, 300L);
+    }
+
+    @Test
+    public void shouldDoubleDelayExponential() {
+        final RetryStrategy retryStrategy = new RetryStrategy(4, 100, Backoff.EXPONENTIAL, 0, null);
+
+        assertThat(getDelays(retryStrategy, 4)).containsExactly(100L, 200L, 400L, 800L);
+    }
+
+    @Test
+    public void shouldLimitDelayToMaxDelay() {
+        final RetryStrategy retryStrategy = new RetryStrategy(4, 100, Backoff.EXPONENTIAL, 300, null);
+
+        assertThat(getDelays(retryStrategy, 4)).containsExactly(100L, 200L, 300L, 300L);
+    }
+
+    @Test
+    public void shouldKeepDecorrelatedJitterWithinBounds() {
+        final RetryStrategy retryStrategy = new RetryStrategy(20, 100, Backoff.DECORRELATED_JITTER, 5000, null);
+        long previousDelay = 100;
+
+        for (long delay : getDelays(retryStrategy, 20)) {
+            assertThat(delay).isBetween(100L, Math.min(previousDelay * 3, 5000));
+            previousDelay = delay;
+        }
+    }
+
+    @Test
+    public void shouldReturnSameDelayUntilRetryCountIsIncreased() {
+        final RetryStrategy retryStrategy = new RetryStrategy(2, 100, Backoff.DECORRELATED_JITTER, 0, null);
+        retryStrategy.increaseCurrentRetryCount();
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(retryStrategy.getRetryDelay());
+    }
+
+    @Test
+    public void shouldFindBackoffByName() {
+        assertThat(Backoff.fromName(null)).isEqualTo(Backoff.FIXED);
+        assertThat(Backoff.fromName("Exponential")).isEqualTo(Backoff.EXPONENTIAL);
+        assertThat(Backoff.fromName("decorrelated-jitter")).isEqualTo(Backoff.DECORRELATED_JITTER);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithUnknownBackoff() {
+        assertThatThrownBy(() -> Backoff.fromName("random"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown backoff 'random'");
+    }
+
+    @Test
+    public void shouldThrowExceptionWithNegativeMaxDelay() {
+        assertThatThrownBy(() -> new RetryStrategy(1, 100, Backoff.FIXED, -1, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Max delay has to be a positive number - given value -1.");
+    }
+
+    @Test
+    public void shouldUseRetryAfterSeconds() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        retryStrategy.responseFailed(503, "3");
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(3000);
+    }
+
+    @Test
+    public void shouldUseRetryAfterDate() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        retryStrategy.responseFailed(503, DateUtils.formatDate(new Date(System.currentTimeMillis() + 10_000)));
+
+        assertThat(retryStrategy.getRetryDelay()).isBetween(8_000L, 10_000L);
+    }
+
+    @Test
+    public void shouldLimitRetryAfterToMaxDelay() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 2000, null);
+
+        retryStrategy.responseFailed(429, "3600");
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(2000);
+    }
+
+    @Test
+    public void shouldLimitRetryAfterWithoutMaxDelay() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        retryStrategy.responseFailed(429, "3600");
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(RetryStrategy.MAX_RETRY_AFTER);
+    }
+
+    @Test
+    public void shouldLimitRetryAfterWithTooManyDigits() {
+        final RetryStrategy limited = new RetryStrategy(1, 100, Backoff.FIXED, 2000, null);
+        final RetryStrategy unlimited = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        limited.responseFailed(503, "99999999999999999999999");
+        unlimited.responseFailed(503, "9223372036854775807");
+
+        assertThat(limited.getRetryDelay()).isEqualTo(2000);
+        assertThat(unlimited.getRetryDelay()).isEqualTo(RetryStrategy.MAX_RETRY_AFTER);
+    }
+
+    @Test
+    public void shouldIgnoreInvalidRetryAfter() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        retryStrategy.responseFailed(503, "soon");
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldUseBackoffAfterRetryWithRetryAfter() {
+        final RetryStrategy retryStrategy = new RetryStrategy(2, 100, Backoff.FIXED, 0, null);
+        retryStrategy.responseFailed(503, "1");
+        retryStrategy.increaseCurrentRetryCount();
+
+        assertThat(retryStrategy.getRetryDelay()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldRetryEveryStatusWithoutRetryableStatuses() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, null);
+
+        retryStrategy.responseFailed(404, null);
+
+        assertThat(retryStrategy.isRetryable()).isTrue();
+    }
+
+    @Test
+    public void shouldRetryOnlyRetryableStatuses() {
+        final RetryStrategy retryStrategy = new RetryStrategy(1, 100, Backoff.FIXED, 0, Arrays.asList(429, 503));
+
+        retryStrategy.responseFailed(503, null);
+        assertThat(retryStrategy.isRetryable()).isTrue();
+
+        retryStrategy.responseFailed(404, null);
+        assertThat(retryStrategy.isRetryable()).isFalse();
+    }
+
+    private List<Long> getDelays(final RetryStrategy retryStrategy, final int retries) {
+        final List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < retries; i++) {
+            delays.add(retryStrategy.getRetryDelay());
+            retryStrategy.increaseCurrentRetryCount();
+        }
+        return delays;
+    }
 }
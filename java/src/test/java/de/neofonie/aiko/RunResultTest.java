@@ -0,0 +1,124 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RunResultTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadWrittenResult() throws IOException {
+        final RunResult result = newResult(new Shard(1, 2), 2, 3, "failed group");
+
+        final RunResult read = writeAndRead(result);
+
+        assertThat(read.getShard()).isEqualTo(new Shard(1, 2));
+        assertThat(read.getExitCode()).isEqualTo(2);
+        assertThat(read.getTests()).isEqualTo(3);
+        assertThat(read.getFailedTests()).isEqualTo(1);
+        assertThat(read.getCancelledTests()).isEqualTo(1);
+        assertThat(read.getSkippedTests()).isEqualTo(1);
+        assertThat(read.getFailedGroups()).containsExactly("failed group");
+        assertThat(read.getLatencies().getTotalCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldMergeResultsOfAllShards() throws IOException {
+        final RunResult merged = RunResult.merge(Arrays.asList(
+                writeAndRead(newResult(new Shard(2, 2), 2, 2, "second")),
+                writeAndRead(newResult(new Shard(1, 2), 0, 3))));
+
+        assertThat(merged.getShard()).isNull();
+        assertThat(merged.getShards()).isEqualTo(2);
+        assertThat(merged.getExitCode()).isEqualTo(2);
+        assertThat(merged.getTests()).isEqualTo(5);
+        assertThat(merged.getCancelledTests()).isEqualTo(2);
+        assertThat(merged.getSkippedTests()).isEqualTo(2);
+        assertThat(merged.getFailedGroups()).containsExactly("second");
+        assertThat(merged.getLatencies().getTotalCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void shouldThrowExceptionIfShardIsMissingOrGivenTwice() throws IOException {
+        assertThatThrownBy(() -> RunResult.merge(Arrays.asList(newResult(new Shard(1, 3), 0, 1), newResult(new Shard(3, 3), 0, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Missing results of shards [2] of 3.");
+        assertThatThrownBy(() -> RunResult.merge(Arrays.asList(newResult(new Shard(1, 2), 0, 1), newResult(new Shard(1, 2), 0, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Shard 1/2 is given twice.");
+        assertThatThrownBy(() -> RunResult.merge(Arrays.asList(newResult(new Shard(1, 2), 0, 1), newResult(new Shard(2, 3), 0, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Shard 2/3 does not belong to a run with 2 shards.");
+        assertThatThrownBy(() -> RunResult.merge(Arrays.asList(newResult(null, 0, 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldThrowExceptionForInvalidFile() throws IOException {
+        final Path file = folder.newFile().toPath();
+        Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> RunResult.read(file)).isInstanceOf(IOException.class).hasMessageStartingWith("Invalid result");
+    }
+
+    private RunResult writeAndRead(final RunResult result) throws IOException {
+        final Path file = folder.newFile().toPath();
+        result.write(file);
+        return RunResult.read(file);
+    }
+
+    private static RunResult newResult(final Shard shard, final int exitCode, final int tests, final String... failedGroups)
+            throws IOException {
+        try (Context context = TestUtil.getTestContext()) {
+            final RunStatistics statistics = context.getStatistics();
+            for (int i = 0; i < tests; i++) {
+                statistics.startTest();
+                statistics.finishTest(i > 0 || failedGroups.length == 0);
+                context.getLatencies().getRun().recordValue(1000 * (i + 1));
+            }
+            for (String group : failedGroups) {
+                statistics.addFailedGroup(group);
+            }
+            statistics.cancelTest();
+            statistics.skipTest();
+            return RunResult.of(context, shard, exitCode);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RunStatisticsTest {
+
+    private final RunStatistics statistics = new RunStatistics();
+
+    @Test
+    public void shouldNumberStartedTests() {
+        assertThat(statistics.startTest()).isEqualTo(1);
+        assertThat(statistics.startTest()).isEqualTo(2);
+        assertThat(statistics.getTests()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCountPassedAndFailedTests() {
+        statistics.finishTest(true);
+        statistics.finishTest(false);
+        statistics.finishTest(false);
+
+        assertThat(statistics.getPassedTests()).isEqualTo(1);
+        assertThat(statistics.getFailedTests()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCountCancelledAndSkippedTestsSeparately() {
+        statistics.cancelTest();
+        statistics.skipTest();
+        statistics.skipTest();
+
+        assertThat(statistics.getCancelledTests()).isEqualTo(1);
+        assertThat(statistics.getSkippedTests()).isEqualTo(2);
+        assertThat(statistics.getFailedTests()).isEqualTo(0);
+        assertThat(statistics.toString()).contains("cancelled: 1, skipped: 2");
+    }
+
+    @Test
+    public void shouldCountRequestsAndBytes() {
+        statistics.addRequest(10);
+        statistics.addRequest(0);
+        statistics.addBytesReceived(20);
+
+        assertThat(statistics.getRequests()).isEqualTo(2);
+        assertThat(statistics.getBytesSent()).isEqualTo(10);
+        assertThat(statistics.getBytesReceived()).isEqualTo(20);
+    }
+
+    @Test
+    public void shouldKeepFailedGroupsInOrder() {
+        statistics.addFailedGroup("b");
+        statistics.addFailedGroup("a");
+
+        assertThat(statistics.getFailedGroups()).containsExactly("b", "a");
+    }
+}
@@ -27,19 +27,26 @@ import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import org.apache.commons.cli.ParseException;
+import org.json.JSONArray;
+import org.json.JSONObject;
 import org.junit.After;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.delete;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.put;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
@@ -102,10 +109,430 @@ public class RunnerTest {
         final long startTimeMillis = System.currentTimeMillis();
         final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "retry-tests.yml");
         final long durationMillis = System.currentTimeMillis() - startTimeMillis;
-        final long expectedDuration = 3000; //(one normal try + three retry) * retry delay
+        final long expectedDuration = 2000; //two retries * retry delay, no delay after the last try
 
         assertThat(exitCode).isEqualTo(2);
-        assertThat(durationMillis).isGreaterThan(expectedDuration);
+        assertThat(durationMillis).isBetween(expectedDuration, expectedDuration + 900);
+    }
+
+    @Test
+    public void shouldRetryAfterDelayOfThrottledResponse() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "throttled-tests.yml");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(durationMillis).isGreaterThanOrEqualTo(1000);
+        instanceRule.verify(2, getRequestedFor(urlEqualTo("/throttled")));
+    }
+
+    @Test
+    public void shouldRetryAfterDelayOfThrottledResponseAsync() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "throttled-tests.yml", "--async");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(durationMillis).isGreaterThanOrEqualTo(1000);
+        instanceRule.verify(2, getRequestedFor(urlEqualTo("/throttled")));
+    }
+
+    @Test
+    public void shouldNotRetryOtherStatuses() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "not-retried-tests.yml");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(durationMillis).isLessThan(1000);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/missing")));
+    }
+
+    @Test
+    public void shouldReturnZeroStatusCodeOnSuccessfulParallelTests() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "-p", "4");
+
+        assertThat(exitCode).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnOneFailedParallelTestGroup() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "first-group-fails-second-succeeded.yml", "--parallel", "2");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReturnZeroStatusCodeOnSuccessfulAsyncTests() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--async", "-p", "4");
+
+        assertThat(exitCode).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnFailedAsyncTests() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "first-group-fails-second-succeeded.yml", "--async");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRetryFailingAsyncTest() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "retry-tests.yml", "--async");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+        final long expectedDuration = 2000; //two retries * retry delay
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(durationMillis).isGreaterThanOrEqualTo(expectedDuration);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnUnreachableServerAsync() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "wrong-domain-tests.yml", "--async");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReturnZeroStatusCodeOnSuccessfulVirtualThreadTests() throws IOException, ParseException {
+        Assume.assumeTrue(isVirtualThreadSupportBuilt());
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--virtual-threads", "-p", "100");
+
+        assertThat(exitCode).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnOneStatusCodeWithVirtualThreadsAndAsync() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--virtual-threads", "--async");
+
+        assertThat(exitCode).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturnOneStatusCodeWithInvalidParallelism() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "-p", "0");
+
+        assertThat(exitCode).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnSlowResponse() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "slow-tests.yml");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnSlowAsyncResponse() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "slow-tests.yml", "--async");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCheckBodyPaths() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "body-paths-tests.yml");
+
+        assertThat(exitCode).isEqualTo(2);
+        instanceRule.verify(2, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldMatchHeaders() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "header-matcher-tests.yml");
+
+        assertThat(exitCode).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnZeroStatusCodeOnSuccessfulStreamedTests() throws IOException, ParseException {
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--stream")).isEqualTo(0);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--stream", "-p", "2")).isEqualTo(0);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--stream", "--async")).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldReturnTwoStatusCodeOnFailedStreamedTests() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "first-group-fails-second-succeeded.yml", "--stream");
+
+        assertThat(exitCode).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldWriteLatencyReportOfStreamedTests() throws Exception {
+        final File report = File.createTempFile("latencies", ".json");
+        report.deleteOnExit();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--stream",
+                "--latency-report", report.getPath());
+
+        assertThat(exitCode).isEqualTo(0);
+        final JSONArray groups = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8)).getJSONArray("groups");
+        assertThat(groups.length()).isEqualTo(2);
+        assertThat(groups.getJSONObject(0).getString("name")).isEqualTo("modify tests");
+        assertThat(groups.getJSONObject(1).getString("name")).isEqualTo("read test");
+    }
+
+    @Test
+    public void shouldReportGroupsBeforeInvalidStreamedGroup() throws Exception {
+        final File report = File.createTempFile("latencies", ".json");
+        final File result = File.createTempFile("result", ".json");
+        report.deleteOnExit();
+        result.deleteOnExit();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-second-group-tests.yml", "--stream",
+                "--latency-report", report.getPath(), "--result", result.getPath());
+
+        assertThat(exitCode).isEqualTo(1);
+        final JSONArray groups = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8)).getJSONArray("groups");
+        assertThat(groups.length()).isEqualTo(1);
+        assertThat(groups.getJSONObject(0).getString("name")).isEqualTo("valid group");
+        assertThat(RunResult.read(result.toPath()).getExitCode()).isEqualTo(1);
+        assertThat(RunResult.read(result.toPath()).getTests()).isEqualTo(1);
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/missing")));
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-second-group-tests.yml", "--stream", "-p", "2")).isEqualTo(1);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-second-group-tests.yml", "--stream", "--async")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturnOneStatusCodeOnInvalidDependencies() throws IOException, ParseException {
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-dependency-tests.yml")).isEqualTo(1);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-dependency-tests.yml", "--stream")).isEqualTo(1);
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldReportGroupsBeforeUnreadableStreamedFile() throws Exception {
+        final File report = File.createTempFile("latencies", ".json");
+        final File result = File.createTempFile("result", ".json");
+        report.deleteOnExit();
+        result.deleteOnExit();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml",
+                "-f", TestUtil.getTestUserDir() + "missing-tests.yml", "--stream",
+                "--latency-report", report.getPath(), "--result", result.getPath());
+
+        assertThat(exitCode).isEqualTo(1);
+        final JSONArray groups = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8)).getJSONArray("groups");
+        assertThat(groups.length()).isGreaterThan(0);
+        assertThat(RunResult.read(result.toPath()).getExitCode()).isEqualTo(1);
+        assertThat(RunResult.read(result.toPath()).getTests()).isGreaterThan(0);
+    }
+
+    @Test
+    public void shouldRunGroupsOfAllFilesInOrder() throws Exception {
+        final File report = File.createTempFile("latencies", ".json");
+        report.deleteOnExit();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "header-matcher-tests.yml",
+                TestUtil.getTestUserDir() + "all-methods-tests.yml", "--latency-report", report.getPath());
+
+        assertThat(exitCode).isEqualTo(0);
+        final JSONArray groups = new JSONObject(new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8)).getJSONArray("groups");
+        assertThat(groups.length()).isEqualTo(3);
+        assertThat(groups.getJSONObject(0).getString("name")).isEqualTo("header matcher tests");
+        assertThat(groups.getJSONObject(1).getString("name")).isEqualTo("modify tests");
+        assertThat(groups.getJSONObject(2).getString("name")).isEqualTo("read test");
+    }
+
+    @Test
+    public void shouldRunGroupsOfGlobbedFiles() throws IOException, ParseException {
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "{all-methods,header-matcher}-tests.yml")).isEqualTo(0);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "{all-methods,header-matcher}-tests.yml", "--stream")).isEqualTo(0);
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "{all-methods,fail}-tests.yml", "--stream")).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReturnOneStatusCodeIfGlobMatchesNothing() throws IOException, ParseException {
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "*.missing")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldMergeResultsOfShards() throws Exception {
+        final String files = TestUtil.getTestUserDir() + "{all-methods,header-matcher}-tests.yml";
+        final File first = File.createTempFile("shard", ".json");
+        final File second = File.createTempFile("shard", ".json");
+        final File all = File.createTempFile("all", ".json");
+        final File merged = File.createTempFile("merged", ".json");
+        first.deleteOnExit();
+        second.deleteOnExit();
+        all.deleteOnExit();
+        merged.deleteOnExit();
+
+        assertThat(Runner.executeAikoTests("-f", files, "--result", all.getPath())).isEqualTo(0);
+        final long tests = RunResult.read(all.toPath()).getTests();
+
+        assertThat(Runner.executeAikoTests("-f", files, "--shard", "1/2", "--result", first.getPath())).isEqualTo(0);
+        assertThat(Runner.executeAikoTests("-f", files, "--shard", "2/2", "--result", second.getPath(), "--stream")).isEqualTo(0);
+        assertThat(RunResult.read(first.toPath()).getTests() + RunResult.read(second.toPath()).getTests()).isEqualTo(tests);
+        assertThat(Runner.executeAikoTests("--merge", first.getPath(), second.getPath(), "--result", merged.getPath())).isEqualTo(0);
+        assertThat(RunResult.read(merged.toPath()).getTests()).isEqualTo(tests);
+        assertThat(Runner.executeAikoTests("--merge", first.getPath())).isEqualTo(1);
+
+        final String cancelled = TestUtil.getTestUserDir() + "cancelled-tests.yml";
+        assertThat(Runner.executeAikoTests("-f", cancelled, "--shard", "1/2", "--result", first.getPath())).isIn(0, 2);
+        assertThat(Runner.executeAikoTests("-f", cancelled, "--shard", "2/2", "--result", second.getPath())).isIn(0, 2);
+        assertThat(Runner.executeAikoTests("--merge", first.getPath(), second.getPath(), "--result", merged.getPath())).isEqualTo(2);
+        assertThat(RunResult.read(merged.toPath()).getFailedTests()).isEqualTo(1);
+        assertThat(RunResult.read(merged.toPath()).getCancelledTests()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReturnExitCodeOfFailedShard() throws Exception {
+        final String files = TestUtil.getTestUserDir() + "{all-methods,fail}-tests.yml";
+        final File first = File.createTempFile("shard", ".json");
+        final File second = File.createTempFile("shard", ".json");
+        first.deleteOnExit();
+        second.deleteOnExit();
+
+        final int firstExitCode = Runner.executeAikoTests("-f", files, "--shard", "1/2", "--result", first.getPath());
+        final int secondExitCode = Runner.executeAikoTests("-f", files, "--shard", "2/2", "--result", second.getPath());
+
+        assertThat(Math.max(firstExitCode, secondExitCode)).isEqualTo(2);
+        assertThat(Runner.executeAikoTests("--merge", first.getPath(), second.getPath())).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldRecordDurationsOfGroups() throws Exception {
+        final File history = File.createTempFile("history", ".json");
+        history.delete();
+        history.deleteOnExit();
+
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "-p", "2",
+                "--history", history.getPath())).isEqualTo(0);
+        assertThat(GroupHistory.read(history.toPath()).getDuration("modify tests")).isNotNull();
+        assertThat(GroupHistory.read(history.toPath()).getDuration("read test")).isNotNull();
+        assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--async",
+                "--history", history.getPath())).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRunIndependentTestsOfGroupConcurrently() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "dependency-tests.yml");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(durationMillis).isLessThan(1500);
+        instanceRule.verify(3, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    public void shouldRunIndependentTestsOfGroupConcurrentlyAsync() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "dependency-tests.yml", "--async");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(durationMillis).isLessThan(1500);
+        instanceRule.verify(3, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    public void shouldSkipTestsWhoseDependencyFailed() throws IOException, ParseException {
+        // the independent test would be cancelled if the failure came first
+        final String file = TestUtil.getTestUserDir() + "dependency-fail-tests.yml";
+        assertThat(Runner.executeAikoTests("-f", file, "--continue-on-failure")).isEqualTo(2);
+        assertThat(Runner.executeAikoTests("-f", file, "--continue-on-failure", "--async", "-p", "2")).isEqualTo(2);
+        assertThat(Runner.executeAikoTests("-f", file, "--continue-on-failure", "-p", "2")).isEqualTo(2);
+
+        instanceRule.verify(6, getRequestedFor(urlEqualTo("/users/1")));
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    public void shouldCountTestsSkippedAfterFailedDependency() throws Exception {
+        final File result = File.createTempFile("result", ".json");
+        result.deleteOnExit();
+
+        for (String file : new String[]{"dependency-fail-tests.yml", "chain-fail-tests.yml"}) {
+            assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + file, "--result", result.getPath())).isEqualTo(2);
+            assertThat(RunResult.read(result.toPath()).getSkippedTests()).isEqualTo(1);
+            assertThat(Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + file, "--async", "--result", result.getPath())).isEqualTo(2);
+            assertThat(RunResult.read(result.toPath()).getSkippedTests()).isEqualTo(1);
+        }
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    public void shouldRunLoadTest() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "load-tests.yml");
+
+        assertThat(exitCode).isEqualTo(0);
+        instanceRule.verify(20, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldRunLoadTestAsync() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "load-tests.yml", "--async");
+
+        assertThat(exitCode).isEqualTo(0);
+        instanceRule.verify(20, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldSkipRemainingGroupsAfterFailure() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "first-group-fails-second-succeeded.yml");
+
+        assertThat(exitCode).isEqualTo(2);
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldRunAllGroupsWhenContinuingOnFailure() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "first-group-fails-second-succeeded.yml",
+                "--continue-on-failure");
+
+        assertThat(exitCode).isEqualTo(2);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldCancelRunningGroupsAfterFailure() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "cancel-tests.yml", "-p", "3");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(2);
+        // neither the stalled request nor the retry delay is waited for
+        assertThat(durationMillis).isLessThan(2000);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/missing")));
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldCancelRunningGroupsAfterFailureAsync() throws IOException, ParseException {
+        final long startTimeMillis = System.currentTimeMillis();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "cancel-tests.yml", "--async", "-p", "3");
+        final long durationMillis = System.currentTimeMillis() - startTimeMillis;
+
+        assertThat(exitCode).isEqualTo(2);
+        assertThat(durationMillis).isLessThan(2000);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/missing")));
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/users/1")));
+    }
+
+    @Test
+    public void shouldNotSendCookiesOfPreviousTests() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "cookie-tests.yml");
+
+        assertThat(exitCode).isEqualTo(0);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/profile")).withoutHeader("Cookie"));
+    }
+
+    @Test
+    public void shouldNotSendCookiesOfPreviousTestsAsync() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "cookie-tests.yml", "--async");
+
+        assertThat(exitCode).isEqualTo(0);
+        instanceRule.verify(1, getRequestedFor(urlEqualTo("/profile")).withoutHeader("Cookie"));
+    }
+
+    @Test
+    public void shouldWriteLatencyReport() throws IOException, ParseException {
+        final File report = File.createTempFile("latencies", ".json");
+        report.deleteOnExit();
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "all-methods-tests.yml", "--latency-report", report.getPath());
+
+        assertThat(exitCode).isEqualTo(0);
+        assertThat(report.length()).isGreaterThan(0);
     }
 
     @Test
@@ -122,6 +549,14 @@ public class RunnerTest {
         assertThat(exitCode).isEqualTo(2);
     }
 
+    @Test
+    public void shouldReturnOneStatusCodeWithInvalidConfiguration() throws IOException, ParseException {
+        final int exitCode = Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "invalid-backoff-tests.yml");
+
+        assertThat(exitCode).isEqualTo(1);
+        instanceRule.verify(0, getRequestedFor(urlEqualTo("/missing")));
+    }
+
     @Test
     public void shouldThrowExceptionUnreachableServer() throws IOException, ParseException {
         assertThatThrownBy(() -> Runner.executeAikoTests("-f", TestUtil.getTestUserDir() + "wrong-domain-tests.yml"))
@@ -135,6 +570,15 @@ public class RunnerTest {
         assertThat(exitCode).isEqualTo(0);
     }
 
+    private boolean isVirtualThreadSupportBuilt() {
+        try {
+            Class.forName("de.neofonie.aiko.VirtualThreadSupport");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
     private void createServerRoutes() {
         instanceRule.stubFor(get(urlEqualTo("/users/1"))
                 .withHeader("Accept", equalTo("application/json"))
@@ -191,6 +635,37 @@ public class RunnerTest {
                         .withStatus(ClientResponse.Status.NO_CONTENT.getStatusCode())
                 ));
 
+        instanceRule.stubFor(get(urlEqualTo("/throttled"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.SERVICE_UNAVAILABLE.getStatusCode())
+                        .withHeader("Retry-After", "1")
+                ));
+
+        instanceRule.stubFor(get(urlEqualTo("/missing"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.NOT_FOUND.getStatusCode())
+                ));
+
+        instanceRule.stubFor(get(urlEqualTo("/slow"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.OK.getStatusCode())
+                        .withFixedDelay(500)
+                ));
+        instanceRule.stubFor(get(urlEqualTo("/login"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.OK.getStatusCode())
+                        .withHeader("Set-Cookie", "session=1; Path=/")
+                ));
+        instanceRule.stubFor(get(urlEqualTo("/profile"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.OK.getStatusCode())
+                ));
+        instanceRule.stubFor(get(urlEqualTo("/stalled"))
+                .willReturn(aResponse()
+                        .withStatus(ClientResponse.Status.OK.getStatusCode())
+                        .withFixedDelay(5000)
+                ));
+
         instanceRule.stubFor(put(urlEqualTo("/binary"))                
                 .willReturn(aResponse()
                         .withStatus(ClientResponse.Status.CREATED.getStatusCode())
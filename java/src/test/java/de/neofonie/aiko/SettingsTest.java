@@ -0,0 +1,74 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SettingsTest {
+
+    @Test
+    public void shouldHaveDefaultValues() {
+        final Settings settings = new Settings();
+
+        assertThat(settings.getParallelism()).isEqualTo(1);
+        assertThat(settings.getMaxConnectionsPerDomain()).isEqualTo(20);
+        assertThat(settings.getIdleTimeout()).isEqualTo(30);
+        assertThat(settings.getFixtureCacheSize()).isEqualTo(64);
+        assertThat(settings.isContinueOnFailure()).isFalse();
+    }
+
+    @Test
+    public void shouldRunAllGroupsConcurrentlyWithVirtualThreadsByDefault() {
+        final Settings settings = new Settings();
+        settings.setVirtualThreads(true);
+
+        assertThat(settings.getParallelism()).isEqualTo(Integer.MAX_VALUE);
+        settings.setParallelism(8);
+        assertThat(settings.getParallelism()).isEqualTo(8);
+    }
+
+    @Test
+    public void shouldThrowExceptionWithZeroParallelism() {
+        assertThatThrownBy(() -> new Settings().setParallelism(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Parallel has to be a positive number - given value 0.");
+    }
+
+    @Test
+    public void shouldThrowExceptionWithZeroMaxConnections() {
+        assertThatThrownBy(() -> new Settings().setMaxConnectionsPerDomain(0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Max connections has to be a positive number - given value 0.");
+    }
+
+    @Test
+    public void shouldThrowExceptionWithNegativeFixtureCacheSize() {
+        assertThatThrownBy(() -> new Settings().setFixtureCacheSize(-1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Fixture cache size has to be a positive number - given value -1.");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ShardTest {
+
+    @Test
+    public void shouldParseShard() {
+        final Shard shard = Shard.parse("2/4");
+
+        assertThat(shard.getIndex()).isEqualTo(2);
+        assertThat(shard.getCount()).isEqualTo(4);
+        assertThat(shard.toString()).isEqualTo("2/4");
+        assertThat(shard).isEqualTo(new Shard(2, 4));
+    }
+
+    @Test
+    public void shouldThrowExceptionForInvalidShard() {
+        assertThatThrownBy(() -> Shard.parse("2"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid shard '2' - expected i/n, e.g. 1/4.");
+        assertThatThrownBy(() -> Shard.parse("a/4")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Shard.parse("0/4")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Shard.parse("5/4"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid shard 5/4 - expected i/n with 1 <= i <= n.");
+    }
+
+    @Test
+    public void shouldAssignEveryGroupToExactlyOneShard() {
+        final List<Group> groups = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            groups.add(newGroup("group " + i));
+        }
+
+        final List<Group> covered = new ArrayList<>();
+        for (int index = 1; index <= 3; index++) {
+            final List<Group> shardGroups = new Shard(index, 3).filter(groups);
+            assertThat(shardGroups).isNotEmpty();
+            covered.addAll(shardGroups);
+        }
+
+        assertThat(covered).hasSize(groups.size()).containsOnlyElementsOf(groups);
+    }
+
+    @Test
+    public void shouldKeepGroupInShardWhenOtherGroupsChange() {
+        final Shard shard = new Shard(1, 2);
+        final Group group = newGroup("read test");
+
+        assertThat(shard.contains(group)).isTrue();
+        assertThat(shard.filter(Arrays.asList(newGroup("modify tests"), group))).containsExactly(group);
+    }
+
+    @Test
+    public void shouldFilterIteratorLazily() {
+        final Group first = newGroup("header matcher tests");
+        final Group second = newGroup("read test");
+        final Iterator<Group> groups = new Shard(1, 2).filter(Arrays.asList(first, newGroup("modify tests"), second).iterator());
+
+        assertThat(groups.next()).isSameAs(first);
+        assertThat(groups.hasNext()).isTrue();
+        assertThat(groups.next()).isSameAs(second);
+        assertThat(groups.hasNext()).isFalse();
+    }
+
+    private static Group newGroup(final String name) {
+        final Group group = new Group();
+        group.setName(name);
+        return group;
+    }
+}
@@ -23,12 +23,24 @@ SOFTWARE.
  */
 package de.neofonie.aiko;
 
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.Load;
+import de.neofonie.aiko.yaml.Retry;
+import de.neofonie.aiko.yaml.TestCase;
 import de.neofonie.aiko.yaml.TestConfiguration;
 import org.junit.Test;
+import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TestConfigurationTest {
 
@@ -39,4 +51,144 @@ public class TestConfigurationTest {
 
         assertThat(testConfiguration.getGroups().size()).isEqualTo(2);
     }
+
+    @Test
+    public void shouldMergeGroupsOfFilesInOrder() throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (String name : new String[]{"/tests.yml", "/header-matcher-tests.yml", "/all-methods-tests.yml"}) {
+            files.add(new File(getClass().getResource(name).getFile()));
+        }
+
+        final List<String> names = new ArrayList<>();
+        for (Group group : TestConfiguration.getFromFiles(files).getGroups()) {
+            names.add(group.getName());
+        }
+
+        assertThat(names).containsExactly("multipleTest", "singleTest", "header matcher tests", "modify tests", "read test");
+    }
+
+    @Test
+    public void shouldNameFileWithInvalidConfiguration() throws IOException {
+        final List<File> files = new ArrayList<>();
+        files.add(new File(getClass().getResource("/tests.yml").getFile()));
+        files.add(new File(getClass().getResource("/testdata.json").getFile()));
+
+        assertThatThrownBy(() -> TestConfiguration.getFromFiles(files))
+                .isInstanceOf(YAMLException.class)
+                .hasMessageContaining("testdata.json");
+    }
+
+    @Test
+    public void shouldParseAllProperties() {
+        final TestCase testCase = TestConfiguration.getFromString(getConfiguration(1)).getGroups().get(0).getTests().get(0);
+
+        assertThat(testCase.getName()).isEqualTo("test 1");
+        assertThat(testCase.getRequest().getUri()).isEqualTo("/users/1");
+        assertThat(testCase.getRequest().isChunked()).isTrue();
+        assertThat(testCase.getRequest().toString()).contains("method='POST'", "Accept=application/json", "body='@user.json'");
+        assertThat(testCase.getResponse().getStatus()).isEqualTo(201);
+        assertThat(testCase.getResponse().toString()).contains("maxLatencyMs=100", "maxTimeToFirstByteMs=50",
+                "bodyLength=4", "bodyMd5='098f'", "bodySha256='9f86'", "bodyPaths={$.id=1}", "ETag={regex=.+}");
+
+        final Retry retry = testCase.getRetry();
+        assertThat(retry.getCount()).isEqualTo(3);
+        assertThat(retry.getDelay()).isEqualTo(100);
+        assertThat(retry.getBackoff()).isEqualTo("exponential");
+        assertThat(retry.getMaxDelay()).isEqualTo(1000);
+        assertThat(retry.getStatuses()).containsExactly(503, 429);
+
+        final Load load = testCase.getLoad();
+        assertThat(load.getRate()).isEqualTo(10);
+        assertThat(load.getDuration()).isEqualTo(2);
+        assertThat(load.getConcurrency()).isEqualTo(5);
+        assertThat(load.getValidateEvery()).isEqualTo(2);
+        assertThat(load.getMaxErrorRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void shouldRejectUnknownBackoffWhenLoaded() {
+        assertThatThrownBy(() -> TestConfiguration.getFromString("groups:\n  - name: group\n    tests:\n"
+                + "    - retry:\n        backoff: quadratic\n"))
+                .isInstanceOf(YAMLException.class)
+                .hasMessageContaining("Unknown backoff 'quadratic'");
+    }
+
+    @Test
+    public void shouldRejectInvalidBodyPathWhenLoaded() {
+        assertThatThrownBy(() -> TestConfiguration.getFromString("groups:\n  - name: group\n    tests:\n"
+                + "    - response:\n        bodyPaths:\n          name: aiko\n"))
+                .isInstanceOf(YAMLException.class)
+                .hasMessageContaining("Invalid JSON path 'name'");
+    }
+
+    @Test
+    public void shouldRejectUnknownDependencyWhenLoaded() {
+        assertThatThrownBy(() -> TestConfiguration.getFromString("groups:\n  - name: group\n    tests:\n"
+                + "    - name: a\n      dependsOn: [missing]\n"))
+                .isInstanceOf(YAMLException.class)
+                .hasMessageContaining("Test 'a' of group 'group' depends on unknown test 'missing'.");
+    }
+
+    @Test
+    public void shouldRejectUnknownProperties() {
+        assertThatThrownBy(() -> TestConfiguration.getFromString("groups:\n  - name: group\n    unknown: value\n"))
+                .isInstanceOf(YAMLException.class);
+    }
+
+    @Test
+    public void shouldParseConfigurationsInParallel() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<TestConfiguration>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                final String configuration = getConfiguration(i);
+                results.add(executor.submit(() -> TestConfiguration.getFromString(configuration)));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get().getGroups().get(0).getTests().get(0).getName()).isEqualTo("test " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String getConfiguration(final int number) {
+        return "groups:\n"
+                + "  - name: group\n"
+                + "    domain: http://localhost:8111\n"
+                + "    tests:\n"
+                + "    - name: test " + number + "\n"
+                + "      request:\n"
+                + "        method: POST\n"
+                + "        uri: /users/1\n"
+                + "        chunked: true\n"
+                + "        headers:\n"
+                + "          Accept: application/json\n"
+                + "        body: '@user.json'\n"
+                + "      response:\n"
+                + "        status: 201\n"
+                + "        headers:\n"
+                + "          ETag:\n"
+                + "            regex: .+\n"
+                + "        bodyPaths:\n"
+                + "          $.id: 1\n"
+                + "        maxLatencyMs: 100\n"
+                + "        maxTimeToFirstByteMs: 50\n"
+                + "        bodySha256: 9f86\n"
+                + "        bodyMd5: 098f\n"
+                + "        bodyLength: 4\n"
+                + "      retry:\n"
+                + "        count: 3\n"
+                + "        delay: 100\n"
+                + "        backoff: exponential\n"
+                + "        maxDelay: 1000\n"
+                + "        statuses: [503, 429]\n"
+                + "      load:\n"
+                + "        rate: 10\n"
+                + "        duration: 2\n"
+                + "        concurrency: 5\n"
+                + "        validateEvery: 2\n"
+                + "        maxErrorRate: 1\n";
+    }
 }
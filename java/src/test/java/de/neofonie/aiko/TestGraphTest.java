@@ -0,0 +1,116 @@
+/*
+The MIT License (MIT)
+
+Copyright (c) 2016 Neofonie GmbH
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+ */
+package de.neofonie.aiko;
+
+import de.neofonie.aiko.yaml.Group;
+import de.neofonie.aiko.yaml.TestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TestGraphTest {
+
+    @Test
+    public void shouldChainTestsByDefault() {
+        final TestGraph graph = TestGraph.of(newGroup(false, newTest("a"), newTest("b"), newTest("c")));
+
+        assertThat(graph.isChain()).isTrue();
+        assertThat(graph.getDependencies(0)).isEmpty();
+        assertThat(graph.getDependencies(2)).containsExactly(1);
+        assertThat(graph.getOrder()).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    public void shouldNotChainTestsOfParallelGroup() {
+        final TestGraph graph = TestGraph.of(newGroup(true, newTest("a"), newTest("b"), newTest("c", "a")));
+
+        assertThat(graph.isChain()).isFalse();
+        assertThat(graph.getDependencies(1)).isEmpty();
+        assertThat(graph.getDependencies(2)).containsExactly(0);
+    }
+
+    @Test
+    public void shouldKeepChainForTestsWithoutDependencies() {
+        final TestGraph graph = TestGraph.of(newGroup(false, newTest("create"), newTest("read", "create"),
+                newTest("check", "create"), newTest("delete")));
+
+        assertThat(graph.isChain()).isFalse();
+        assertThat(graph.getDependencies(1)).containsExactly(0);
+        assertThat(graph.getDependencies(2)).containsExactly(0);
+        assertThat(graph.getDependencies(3)).containsExactly(2);
+    }
+
+    @Test
+    public void shouldSortTestsAfterTheirDependencies() {
+        final TestGraph graph = TestGraph.of(newGroup(true, newTest("a", "c"), newTest("b"), newTest("c", "b")));
+
+        assertThat(graph.getOrder()).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    public void shouldThrowExceptionForUnknownDependency() {
+        assertThatThrownBy(() -> TestGraph.of(newGroup(false, newTest("a", "missing"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Test 'a' of group 'group' depends on unknown test 'missing'.");
+    }
+
+    @Test
+    public void shouldThrowExceptionForAmbiguousDependency() {
+        assertThatThrownBy(() -> TestGraph.of(newGroup(false, newTest("a"), newTest("a"), newTest("b", "a"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Test 'b' of group 'group' depends on 'a', that is not unique in the group.");
+    }
+
+    @Test
+    public void shouldThrowExceptionForCycle() {
+        assertThatThrownBy(() -> TestGraph.of(newGroup(true, newTest("a", "b"), newTest("b", "a"), newTest("c"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Tests of group 'group' depend on each other: [a, b].");
+        assertThatThrownBy(() -> TestGraph.of(newGroup(true, newTest("a", "a"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Group newGroup(final boolean parallel, final TestCase... tests) {
+        final Group group = new Group();
+        group.setName("group");
+        group.setParallel(parallel);
+        group.setTests(new ArrayList<>(Arrays.asList(tests)));
+        return group;
+    }
+
+    private static TestCase newTest(final String name, final String... dependsOn) {
+        final TestCase test = new TestCase();
+        test.setName(name);
+        if (dependsOn.length > 0) {
+            final List<String> dependencies = new ArrayList<>(Arrays.asList(dependsOn));
+            test.setDependsOn(dependencies);
+        }
+        return test;
+    }
+}